@@ -73,10 +73,16 @@ public class Bootstrap extends Application {
 
     private static final String OPT_LIMITFPS_LONG = "limitFps";
 
+    private static final int DEFAULT_FPS_LIMIT = 60;
+
     private static final String OPT_LOGLEVEL_SHORT = "log";
 
     private static final String OPT_LOGLEVEL_LONG = "logLevel";
 
+    private static final String OPT_SHM_SHORT = "shm";
+
+    private static final String OPT_SHM_LONG = "sharedMemory";
+
     private static GlcdConfigApp appConfig;
 
     private static final double MIN_STAGE_WIDTH_SETTINGS = 1135.0;
@@ -193,8 +199,9 @@ public class Bootstrap extends Application {
         Options options = new Options();
         // add t option
         options.addOption(OPT_DEV_SHORT, OPT_DEV_LONG, false, "Enable developer mode");
-        options.addOption(OPT_LIMITFPS_SHORT, OPT_LIMITFPS_LONG, true, "On some operating systems, enabling this option would cap the screen FPS to 60");
+        options.addOption(OPT_LIMITFPS_SHORT, OPT_LIMITFPS_LONG, true, "Caps the screen FPS. Either 'true' (60 FPS), 'false' (no limit) or the maximum number of frames per second");
         options.addOption(OPT_LOGLEVEL_SHORT, OPT_LOGLEVEL_LONG, true, "Sets the logging level of the application");
+        options.addOption(OPT_SHM_SHORT, OPT_SHM_LONG, true, "Export the display frames to a memory-mapped file (e.g. /dev/shm/glcd-emulator)");
 
         CommandLine cmd = null;
 
@@ -216,19 +223,33 @@ public class Bootstrap extends Application {
                 logPropValue("Developer Mode", true);
             }
 
-            //Set system properties
-            String ans = "false";
+            //Screen FPS limit, overrides the limit of the app config
             if (cmd.hasOption(OPT_LIMITFPS_SHORT)) {
-                ans = cmd.getOptionValue(OPT_LIMITFPS_SHORT, "false");
-                if (ans.trim().equalsIgnoreCase("true")) {
-                    logPropValue("Limit FPS", true);
+                String ans = cmd.getOptionValue(OPT_LIMITFPS_SHORT, "false").trim();
+                if (ans.equalsIgnoreCase("true")) {
+                    appConfig.setScreenFpsLimit(DEFAULT_FPS_LIMIT);
+                } else if (StringUtils.isNumeric(ans)) {
+                    appConfig.setScreenFpsLimit(Integer.parseInt(ans));
                 } else {
-                    logPropValue("Limit FPS", false);
+                    appConfig.setScreenFpsLimit(0);
                 }
+            }
+            if (appConfig.getScreenFpsLimit() > 0) {
+                log.info("> {}: {}", StringUtils.rightPad("Limit FPS", 30), appConfig.getScreenFpsLimit());
             } else {
                 logPropValue("Limit FPS", false);
             }
-            System.setProperty("quantum.multithreaded", ans);
+            //Set system properties
+            System.setProperty("quantum.multithreaded", String.valueOf(appConfig.getScreenFpsLimit() > 0));
+
+            //Shared memory frame export
+            if (cmd.hasOption(OPT_SHM_SHORT)) {
+                String sharedFrameFile = cmd.getOptionValue(OPT_SHM_SHORT).trim();
+                Context.getInstance().setSharedFrameFile(sharedFrameFile);
+                log.info("> {}: {}", StringUtils.rightPad("Shared memory export", 30), sharedFrameFile);
+            } else {
+                logPropValue("Shared memory export", false);
+            }
 
             //Set logging level
             if (cmd.hasOption(OPT_LOGLEVEL_SHORT)) {
@@ -27,6 +27,7 @@ package com.ibasco.glcdemulator;
 
 import static com.ibasco.glcdemulator.constants.Common.APP_CONFIG_PATH;
 import com.ibasco.glcdemulator.model.GlcdConfigApp;
+import com.ibasco.glcdemulator.utils.RasterCache;
 import com.ibasco.glcdemulator.utils.ResourceUtil;
 import javafx.application.HostServices;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -55,6 +56,8 @@ public final class Context {
 
     private static final Logger log = LoggerFactory.getLogger(Context.class);
 
+    private static final long RASTER_CACHE_CAPACITY = 32 * 1024 * 1024;
+
     private static class InstanceHolder {
         private static Context INSTANCE = new Context();
     }
@@ -71,6 +74,10 @@ public final class Context {
 
     private HostServices hostServices;
 
+    private String sharedFrameFile;
+
+    private RasterCache rasterCache;
+
     private Context() {
     }
 
@@ -116,6 +123,23 @@ public final class Context {
         return getInstance().hostServices;
     }
 
+    /**
+     * @return The path of the file the published frames are exported to (see {@link com.ibasco.glcdemulator.utils.MappedFrameExporter}) or null if frame export is disabled
+     */
+    public String getSharedFrameFile() {
+        return sharedFrameFile;
+    }
+
+    /**
+     * @return The cache of rasterized frames shared by the emulator screens
+     */
+    public RasterCache getRasterCache() {
+        if (rasterCache == null) {
+            rasterCache = new RasterCache(RASTER_CACHE_CAPACITY);
+        }
+        return rasterCache;
+    }
+
     public ThemeManager getThemeManager() {
         if (themeManager == null) {
             themeManager = new ThemeManager();
@@ -146,6 +170,10 @@ public final class Context {
         return version;
     }
 
+    void setSharedFrameFile(String sharedFrameFile) {
+        this.sharedFrameFile = sharedFrameFile;
+    }
+
     void setHostServices(HostServices services) {
         this.hostServices = services;
     }
@@ -37,6 +37,7 @@ import com.ibasco.glcdemulator.utils.ByteUtils;
 import com.ibasco.glcdemulator.utils.DialogUtil;
 import com.ibasco.glcdemulator.utils.FileUtils;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.glcdemulator.utils.RasterCache;
 import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
 import com.ibasco.ucgdisplay.drivers.glcd.*;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBufferType;
@@ -44,6 +45,8 @@ import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusType;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdFont;
 import com.jfoenix.controls.*;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.beans.InvalidationListener;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -69,6 +72,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.util.Callback;
+import javafx.util.Duration;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -123,6 +127,9 @@ public class GlcdDeveloperController extends Controller {
     @FXML
     private Label lblBytesReceived;
 
+    @FXML
+    private Label lblRenderCache;
+
     @FXML
     private JFXButton btnExportCsv;
 
@@ -331,6 +338,18 @@ public class GlcdDeveloperController extends Controller {
         screenOutput.setActivePixelColor(Color.WHITE);
         screenOutput.setBacklightColor(Color.BLACK);
         screenOutput.setPixelSize(3.10d);
+
+        Timeline renderCacheStats = new Timeline(new KeyFrame(Duration.seconds(1), event -> updateRenderCacheStats()));
+        renderCacheStats.setCycleCount(Timeline.INDEFINITE);
+        renderCacheStats.play();
+        updateRenderCacheStats();
+    }
+
+    private void updateRenderCacheStats() {
+        RasterCache cache = getContext().getRasterCache();
+        lblRenderCache.setText(String.format("%d hits, %d misses (%.1f%%), %d entries, %.2f / %.2f MB",
+                cache.getHits(), cache.getMisses(), cache.getHitRate() * 100.0d, cache.size(),
+                cache.getMemoryUsage() / 1048576.0d, cache.getCapacity() / 1048576.0d));
     }
 
     private void onDisplayChange(ObservableValue observable, GlcdDisplayDetails oldValue, GlcdDisplayDetails newValue) {
@@ -510,6 +529,9 @@ public class GlcdDeveloperController extends Controller {
         for (byte data : buffer) {
             bufferLayout.processByte(data);
         }
+        bufferLayout.flush();
+        //the screen only redraws published frames
+        frameBuffer.publish();
     }
 
     private MethodDetails createDetails(Method method) {
@@ -66,7 +66,6 @@ import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -77,7 +76,6 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.image.WritableImage;
 import javafx.scene.input.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.TextAlignment;
@@ -94,7 +92,6 @@ import org.controlsfx.control.StatusBar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -102,6 +99,7 @@ import java.text.DecimalFormat;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -112,6 +110,11 @@ public class GlcdEmulatorController extends Controller {
 
     private static final Logger log = LoggerFactory.getLogger(GlcdEmulatorController.class);
 
+    //about a minute of output at 60 fps
+    private static final int FRAME_HISTORY_MAX_FRAMES = 3600;
+
+    private static final int FRAME_HISTORY_CAPACITY = 8 * 1024 * 1024;
+
     //<editor-fold desc="FXML Fields">
     @FXML
     public VBox vbRoot;
@@ -140,6 +143,9 @@ public class GlcdEmulatorController extends Controller {
     @FXML
     private MenuItem menuSaveScreenAs;
 
+    @FXML
+    private CheckMenuItem menuRecordScreen;
+
     @FXML
     private MenuItem menuExit;
 
@@ -269,6 +275,12 @@ public class GlcdEmulatorController extends Controller {
     @FXML
     private JFXCheckBox cbRunEmulatorStartup;
 
+    @FXML
+    private JFXCheckBox cbIncrementalFlush;
+
+    @FXML
+    private JFXCheckBox cbTileUpdates;
+
     @FXML
     private JFXButton btnSaveSettings;
 
@@ -407,6 +419,12 @@ public class GlcdEmulatorController extends Controller {
 
     private ObjectProperty<PixelBuffer> displayBuffer = new SimpleObjectProperty<>();
 
+    private MappedFrameExporter frameExporter;
+
+    private FrameRecorder frameRecorder;
+
+    private final FrameHistory frameHistory = new FrameHistory(FRAME_HISTORY_CAPACITY, FRAME_HISTORY_MAX_FRAMES);
+
     private ScannerService scannerService = new ScannerService();
 
     private SerialPortService serialPortService = new SerialPortService();
@@ -528,6 +546,7 @@ public class GlcdEmulatorController extends Controller {
     private void setupDisplayScreen() {
         attachAutoFitWindowBindings(glcdScreen.widthProperty());
         attachAutoFitWindowBindings(glcdScreen.heightProperty());
+        glcdScreen.setRasterCache(getContext().getRasterCache());
         //glcdScreen.setShowFPS(true);
     }
 
@@ -630,6 +649,7 @@ public class GlcdEmulatorController extends Controller {
         rightItems.add(pixelSize);
 
         Label emulatorFps = new Label("FPS: 0");
+        Label emulatorDuplicateFps = new Label("Duplicates: 0");
         Label emulatorBps = new Label("0 B/s");
         Label emulatorFrameSize = new Label("Frame Size: 0");
         Label connectionType = new Label("Connection: N/A");
@@ -657,6 +677,7 @@ public class GlcdEmulatorController extends Controller {
         displayService.displayTaskProperty().addListener((observable, oldTask, newTask) -> {
             if (newTask != null) {
                 emulatorFps.textProperty().bind(Bindings.format("FPS: %d", displayService.getStatistics().fpsCounterProperty()));
+                emulatorDuplicateFps.textProperty().bind(Bindings.format("Duplicates: %d", displayService.getStatistics().duplicateFpsProperty()));
                 emulatorBps.textProperty().bind(Bindings.format("%.2f KB/s", displayService.getStatistics().bpsCountProperty().divide(1024.0f)));
                 emulatorFrameSize.textProperty().bind(Bindings.format("Frame Size: %d B", displayService.getStatistics().frameSizeProperty()));
             }
@@ -670,6 +691,8 @@ public class GlcdEmulatorController extends Controller {
         leftItems.add(new Separator(Orientation.VERTICAL));
         leftItems.add(emulatorFps);
         leftItems.add(new Separator(Orientation.VERTICAL));
+        leftItems.add(emulatorDuplicateFps);
+        leftItems.add(new Separator(Orientation.VERTICAL));
         leftItems.add(emulatorBps);
         leftItems.add(new Separator(Orientation.VERTICAL));
         leftItems.add(emulatorFrameSize);
@@ -677,6 +700,63 @@ public class GlcdEmulatorController extends Controller {
         leftItems.add(connectionType);
         leftItems.add(new Separator(Orientation.VERTICAL));
         leftItems.add(connectionDetails);
+
+        setupFrameHistory(leftItems);
+    }
+
+    /**
+     * Frames are recorded while the screen is running. Once frozen, recording is paused and the slider can be used
+     * to scrub through the recorded frames.
+     */
+    private void setupFrameHistory(ObservableList<Node> statusItems) {
+        Slider historySlider = new Slider();
+        historySlider.setPrefWidth(200);
+        historySlider.setBlockIncrement(1);
+        Label historyLabel = new Label();
+        Separator historySeparator = new Separator(Orientation.VERTICAL);
+
+        for (Node node : new Node[] {historySeparator, historySlider, historyLabel}) {
+            node.visibleProperty().bind(glcdScreen.runningProperty().not());
+            node.managedProperty().bind(node.visibleProperty());
+        }
+
+        historySlider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (glcdScreen.isRunning())
+                return;
+            long frameNumber = Math.round(newValue.doubleValue());
+            PixelBuffer frame = frameHistory.getFrame(frameNumber);
+            if (frame == null) {
+                historyLabel.setText("History: N/A");
+                return;
+            }
+            long latestFrameNumber = frameHistory.getLatestFrameNumber();
+            long elapsed = frameHistory.getTimestamp(latestFrameNumber) - frameHistory.getTimestamp(frameNumber);
+            historyLabel.setText(String.format("History: %d (-%.2f s)", frameNumber - latestFrameNumber, elapsed / 1000.0d));
+            glcdScreen.setHistoryFrame(frame);
+        });
+
+        glcdScreen.runningProperty().addListener((observable, oldValue, running) -> {
+            frameHistory.setPaused(!running);
+            if (running) {
+                glcdScreen.setHistoryFrame(null);
+                return;
+            }
+            if (frameHistory.size() == 0) {
+                historySlider.setDisable(true);
+                historyLabel.setText("History: N/A");
+                return;
+            }
+            long latestFrameNumber = frameHistory.getLatestFrameNumber();
+            historySlider.setDisable(false);
+            historySlider.setMin(frameHistory.getOldestFrameNumber());
+            historySlider.setMax(latestFrameNumber);
+            historySlider.setValue(latestFrameNumber);
+            historyLabel.setText(String.format("History: %d frames", frameHistory.size()));
+        });
+
+        statusItems.add(historySeparator);
+        statusItems.add(historySlider);
+        statusItems.add(historyLabel);
     }
 
     private void activateProfile(GlcdEmulatorProfile profile) {
@@ -701,11 +781,43 @@ public class GlcdEmulatorController extends Controller {
 
     private void refreshDisplayBuffer() {
         GlcdEmulatorProfile activeProfile = getContext().getProfileManager().getActiveProfile();
-        displayBuffer.set(new PixelBuffer(activeProfile.getDisplaySizeWidth(), activeProfile.getDisplaySizeHeight()));
+        PixelBuffer oldBuffer = displayBuffer.get();
+        PixelBuffer newBuffer = new PixelBuffer(activeProfile.getDisplaySizeWidth(), activeProfile.getDisplaySizeHeight());
+
+        //A recording cannot change its dimensions
+        if (frameRecorder != null)
+            stopScreenRecording();
+
+        //Move the frame history and the shared memory frame export over to the new buffer
+        if (oldBuffer != null)
+            oldBuffer.removeFrameListener(frameHistory);
+        frameHistory.clear();
+        newBuffer.addFrameListener(frameHistory);
+
+        MappedFrameExporter exporter = getFrameExporter();
+        if (exporter != null) {
+            if (oldBuffer != null)
+                oldBuffer.removeFrameListener(exporter);
+            newBuffer.addFrameListener(exporter);
+        }
+        displayBuffer.set(newBuffer);
 
         log.info("Display buffer refreshed (Width: {}, Height: {})", activeProfile.getDisplaySizeWidth(), activeProfile.getDisplaySizeHeight());
     }
 
+    private MappedFrameExporter getFrameExporter() {
+        String sharedFrameFile = getContext().getSharedFrameFile();
+        if (frameExporter == null && !StringUtils.isBlank(sharedFrameFile)) {
+            try {
+                frameExporter = new MappedFrameExporter(new File(sharedFrameFile).toPath());
+                log.info("Exporting display frames to '{}'", sharedFrameFile);
+            } catch (IOException e) {
+                log.error("Unable to open shared memory frame export file '{}'", sharedFrameFile, e);
+            }
+        }
+        return frameExporter;
+    }
+
     private void handleDrawTestAction(ActionEvent event) {
         if (!drawTestService.isRunning()) {
             drawTestService.restart();
@@ -943,7 +1055,10 @@ public class GlcdEmulatorController extends Controller {
         displayService.busInterfaceProperty().bind(profile.busInterfaceProperty());
         displayService.bufferProperty().bind(displayBuffer);
         displayService.serviceModeProperty().bind(appConfig.serviceModeProperty());
-        displayService.setByteProcessor(ByteProcessorFactory.create(appConfig.getServiceMode()));
+        GlcdByteProcessor byteProcessor = ByteProcessorFactory.create(appConfig.getServiceMode());
+        byteProcessor.incrementalFlushProperty().bind(appConfig.incrementalFlushProperty());
+        byteProcessor.tileUpdatesProperty().bind(appConfig.tileUpdatesProperty());
+        displayService.setByteProcessor(byteProcessor);
         menuEmulatorControl.textProperty().bind(Bindings.createStringBinding(() -> {
             menuEmulatorControl.setUserData(displayService.isRunning());
             if (displayService.isRunning()) {
@@ -1188,8 +1303,10 @@ public class GlcdEmulatorController extends Controller {
         }, glcdScreen.runningProperty()));
 
         btnClearDisplay.setOnAction(event -> {
-            if (displayBuffer.get() != null)
+            if (displayBuffer.get() != null) {
                 displayBuffer.get().clear();
+                displayBuffer.get().publish();
+            }
         });
 
 
@@ -1234,6 +1351,7 @@ public class GlcdEmulatorController extends Controller {
         menuReportIssue.setOnAction(event -> Context.getInstance().getHostServices().showDocument(Common.REPORT_ISSUE_URL));
         menuSaveScreen.setOnAction(event -> saveScreenCapture());
         menuSaveScreenAs.setOnAction(event -> saveScreenCaptureAs(appConfig.getLastSavedImagePath(), appConfig::setLastSavedImagePath));
+        menuRecordScreen.setOnAction(event -> toggleScreenRecording());
         menuSaveSettings.setOnAction(event -> saveAppSettings());
         btnReset.setOnAction(this::resetToDefaultSettings);
         btnDonate.setOnAction(event -> Platform.runLater(() -> Context.getInstance().getHostServices().showDocument(Common.DONATE_URL)));
@@ -1501,6 +1619,7 @@ public class GlcdEmulatorController extends Controller {
 
         appBindGroup.clear();
         appBindGroup.registerBidirectional(glcdScreen.bufferProperty(), displayBuffer);
+        appBindGroup.registerUnidirectional(glcdScreen.maxFpsProperty(), appConfig.screenFpsLimitProperty());
         appBindGroup.registerUnidirectional(hbGlcd.prefWidthProperty(), Bindings.subtract(scpGlcd.widthProperty(), 3));
         appBindGroup.registerUnidirectional(hbGlcd.prefHeightProperty(), Bindings.subtract(scpGlcd.heightProperty(), 3));
 
@@ -1515,6 +1634,8 @@ public class GlcdEmulatorController extends Controller {
         appBindGroup.registerBidirectional(menuAlwaysOnTop.selectedProperty(), appConfig.alwaysOnTopProperty());
         appBindGroup.registerBidirectional(tfProfileDirPath.textProperty(), appConfig.profileDirPathProperty());
         appBindGroup.registerBidirectional(cbRunEmulatorStartup.selectedProperty(), appConfig.runEmulatorAtStartupProperty());
+        appBindGroup.registerBidirectional(cbIncrementalFlush.selectedProperty(), appConfig.incrementalFlushProperty());
+        appBindGroup.registerBidirectional(cbTileUpdates.selectedProperty(), appConfig.tileUpdatesProperty());
         appBindGroup.registerBidirectional(cbAutoSaveSettings.selectedProperty(), appConfig.rememberSettingsOnExitProperty());
         appBindGroup.registerBidirectional(cbConfirmExit.selectedProperty(), appConfig.confirmOnExitProperty());
         appBindGroup.registerBidirectional(cbFitWindowToScreen.selectedProperty(), appConfig.autoFitWindowToScreenProperty());
@@ -2065,19 +2186,70 @@ public class GlcdEmulatorController extends Controller {
             if (!imageFile.getName().endsWith(".png")) {
                 imageFile = new File(imageFile.getAbsolutePath() + ".png");
             }
+            PixelBuffer frame = glcdScreen.captureFrame();
+            if (frame == null) {
+                log.warn("Could not save screen capture, nothing has been drawn yet");
+                return;
+            }
+            //the frame is rendered and encoded off the FX thread
+            GlcdEmulatorProfile profile = getContext().getProfileManager().getActiveProfile();
+            FrameImageWriter writer = new FrameImageWriter();
+            writer.applyProfile(profile, glcdScreen.isGradientBacklight());
+            writer.setWatermarkText(profile.getName() + " - " + profile.getDescription());
             File finalImageFile = imageFile;
-            Platform.runLater(() -> {
+            CompletableFuture.runAsync(() -> {
                 try {
-                    glcdScreen.setWatermarkText(getContext().getProfileManager().getActiveProfile().getName() + " - " + getContext().getProfileManager().getActiveProfile().getDescription());
-                    WritableImage wim = new WritableImage((int) glcdScreen.getWidth(), (int) glcdScreen.getHeight());
-                    glcdScreen.screenshot(wim);
-                    ImageIO.write(SwingFXUtils.fromFXImage(wim, null), "png", finalImageFile);
-                    screenshotTransition.playFromStart();
+                    writer.write(frame, finalImageFile);
+                    Platform.runLater(screenshotTransition::playFromStart);
+                    log.info("Saved screenshot '{}' to directory '{}'", finalImageFile.getName(), FilenameUtils.getFullPath(finalImageFile.getAbsolutePath()));
                 } catch (IOException e) {
-                    log.error("Error encoutnered during screen capture", e);
+                    log.error("Error encountered during screen capture", e);
                 }
-            });
-            log.info("Saved screenshot '{}' to directory '{}'", imageFile.getName(), FilenameUtils.getFullPath(imageFile.getAbsolutePath()));
+            }, Context.getTaskExecutor());
+        }
+    }
+
+    /**
+     * Starts recording the published frames into an animated PNG in the screenshot directory, or stops the current
+     * recording. The frames are encoded on a background thread.
+     */
+    private void toggleScreenRecording() {
+        if (frameRecorder != null) {
+            stopScreenRecording();
+            return;
         }
+        PixelBuffer buffer = displayBuffer.get();
+        if (buffer == null) {
+            menuRecordScreen.setSelected(false);
+            return;
+        }
+        FileUtils.ensureDirectoryExistence(appConfig.getScreenshotDirPath());
+        File file = new File(appConfig.getScreenshotDirPath() + File.separator + imageFileNameFormatter.format(ZonedDateTime.now()) + "-recording.png");
+        IndexedPngEncoder encoder = new IndexedPngEncoder();
+        FrameImageWriter.applyProfile(encoder, getContext().getProfileManager().getActiveProfile());
+        frameRecorder = new FrameRecorder(file, encoder, Math.max(1, appConfig.getRecordFrameInterval()), FrameRecorder.DEFAULT_QUEUE_CAPACITY);
+        frameRecorder.start();
+        buffer.addFrameListener(frameRecorder);
+        menuRecordScreen.setSelected(true);
+        log.info("Recording screen to '{}'", file.getAbsolutePath());
+    }
+
+    private void stopScreenRecording() {
+        FrameRecorder recorder = frameRecorder;
+        frameRecorder = null;
+        PixelBuffer buffer = displayBuffer.get();
+        if (buffer != null)
+            buffer.removeFrameListener(recorder);
+        menuRecordScreen.setSelected(false);
+        recorder.stop().whenComplete((file, error) -> {
+            if (error != null)
+                return; //already logged
+            if (recorder.getRecordedFrames() == 0) {
+                log.warn("Screen recording has been discarded, no frames have been recorded");
+                return;
+            }
+            log.info("Saved screen recording '{}' ({} frames, {} dropped)", file.getName(), recorder.getRecordedFrames(), recorder.getDroppedFrames());
+            Platform.runLater(screenshotTransition::playFromStart);
+        });
     }
 }
@@ -25,12 +25,18 @@
  */
 package com.ibasco.glcdemulator.controls;
 
+import com.ibasco.glcdemulator.Context;
 import com.ibasco.glcdemulator.enums.PixelShape;
 import com.ibasco.glcdemulator.utils.Counter;
+import static com.ibasco.glcdemulator.utils.FrameImageWriter.toArgb;
 import com.ibasco.glcdemulator.utils.NodeUtil;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.glcdemulator.utils.PixelRasterizer;
+import com.ibasco.glcdemulator.utils.RasterCache;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.NumberBinding;
 import javafx.beans.property.*;
@@ -41,6 +47,7 @@ import javafx.scene.control.MenuItem;
 import javafx.scene.effect.BlurType;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.effect.Effect;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -51,8 +58,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings({"unused", "UnnecessaryLocalVariable", "WeakerAccess"})
 public class GlcdScreen extends Canvas {
@@ -70,7 +79,12 @@ public class GlcdScreen extends Canvas {
 
     private ObjectProperty<Color> activePixelColor = new SimpleObjectProperty<>(Color.web("#000000", 1.0));
 
-    private ObjectProperty<Color> backlightColor = new SimpleObjectProperty<>(Color.web("#a5f242", 1.0));
+    private ObjectProperty<Color> backlightColor = new SimpleObjectProperty<>(Color.web("#a5f242", 1.0)) {
+        @Override
+        protected void invalidated() {
+            gradientBacklightColor = null;
+        }
+    };
 
     private FloatProperty contrast = new SimpleFloatProperty(0.5f) {
         @Override
@@ -96,6 +110,14 @@ public class GlcdScreen extends Canvas {
 
     private ObjectProperty<PixelBuffer> buffer = new SimpleObjectProperty<>();
 
+    //when set, drawn in place of the latest published frame (e.g. a frame recalled from history)
+    private ObjectProperty<PixelBuffer> historyFrame = new SimpleObjectProperty<PixelBuffer>() {
+        @Override
+        protected void invalidated() {
+            refresh();
+        }
+    };
+
     private StringProperty watermarkText = new SimpleStringProperty();
 
     private ObjectProperty<Font> watermarkFont = new SimpleObjectProperty<>(new Font("Verdana", 14.0));
@@ -109,6 +131,31 @@ public class GlcdScreen extends Canvas {
     private BooleanProperty gradientBacklight = new SimpleBooleanProperty(true);
 
     private BooleanProperty dropShadowVisible = new SimpleBooleanProperty(true);
+
+    private BooleanProperty rasterized = new SimpleBooleanProperty(true);
+
+    private BooleanProperty backgroundRendering = new SimpleBooleanProperty(true);
+
+    private ObjectProperty<RasterCache> rasterCache = new SimpleObjectProperty<>();
+
+    private ObjectProperty<RenderScheduler> scheduler = new SimpleObjectProperty<RenderScheduler>() {
+        @Override
+        protected void invalidated() {
+            //move a running screen over to the new scheduler (or back to its own timer)
+            if (renderer != null && renderer.isRunning()) {
+                stop();
+                start();
+            }
+        }
+    };
+
+    private IntegerProperty maxFps = new SimpleIntegerProperty(0) {
+        @Override
+        protected void invalidated() {
+            if (renderer != null)
+                renderer.setMaxFps(get());
+        }
+    };
     //</editor-fold>
 
     private DropShadow displayDropShadow;
@@ -119,28 +166,123 @@ public class GlcdScreen extends Canvas {
 
     private Renderer renderer;
 
+    //the scheduler this screen is currently registered with, null if driven by its own timer
+    private RenderScheduler activeScheduler;
+
     private Counter fpsCounter = new Counter();
 
     private ContextMenu cMenu = new ContextMenu();
 
-    private final class Renderer extends AnimationTimer {
+    private final PixelRasterizer rasterizer = new PixelRasterizer();
+
+    private WritableImage rasterImage;
+
+    private Paint gradientBacklightColor;
+
+    private final RenderWorker renderWorker = new RenderWorker();
+
+    //the frame last acquired for drawing
+    private PixelBuffer displayedFrame;
+
+    /**
+     * Rasterizes frames on a background thread, alternating between two pixel arrays so a new frame can be rendered
+     * while the previous one is waiting to be presented. The FX thread only uploads and presents the most recently
+     * completed image. At most one frame per screen is rendered at a time; screens share the task executor, so
+     * rendering scales with the number of cores.
+     */
+    private final class RenderWorker {
+
+        private final PixelRasterizer[] rasterizers = {new PixelRasterizer(), new PixelRasterizer()};
+
+        //index of the rasterizer holding a completed image which has not been presented yet, -1 if none
+        private final AtomicInteger completed = new AtomicInteger(-1);
+
+        private int next = 0;
+
+        private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+
+        /**
+         * Starts rendering the latest frame, unless a frame is still being rendered. Must be called from the FX thread.
+         *
+         * @return True if the frame has been submitted
+         */
+        private boolean submit() {
+            if (!pending.isDone() || buffer.get() == null)
+                return false;
+            PixelRasterizer rasterizer = rasterizers[next];
+            int index = next;
+            configureRasterizer(rasterizer);
+            PixelBuffer frame = acquireFrame();
+            next ^= 1;
+            pending = CompletableFuture.runAsync(() -> {
+                rasterizer.rasterize(frame);
+                completed.set(index);
+            }, Context.getTaskExecutor()).whenComplete((result, error) -> {
+                if (error != null)
+                    log.error("Error rendering frame", error);
+            });
+            return true;
+        }
+
+        /**
+         * @return True if an image has been completed which has not been presented yet
+         */
+        private boolean hasCompleted() {
+            return completed.get() >= 0;
+        }
+
+        /**
+         * Uploads the last completed image (if any) and draws it on the canvas. Must be called from the FX thread.
+         *
+         * @return True if a newly rendered image has been presented
+         */
+        private boolean present(GraphicsContext gc) {
+            int index = completed.getAndSet(-1);
+            if (index >= 0)
+                upload(rasterizers[index]);
+            if (rasterImage == null)
+                return false;
+            gc.clearRect(0, 0, getWidth(), getHeight());
+            gc.drawImage(rasterImage, 0, 0);
+            return index >= 0;
+        }
+
+        /**
+         * Waits for the frame currently being rendered, so the frame can safely be re-acquired by the caller
+         */
+        private void await() {
+            try {
+                pending.join();
+            } catch (Exception ignored) {
+                //already logged
+            }
+        }
+    }
+
+    private final class Renderer extends AnimationTimer implements RenderScheduler.Target {
 
         private GraphicsContext gc = getGraphicsContext2D();
 
         private long lastUpdate = 0;
 
-        private long updateInterval = 55; //55
-
-        private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+        //minimum time between two frames (in nanoseconds), 0 if unlimited
+        private long updateInterval = 0;
 
-        private static final int interval = 1000000000;
+        private int lastFpsCount = -1;
 
         private Font fpsFont = new Font("Verdana", 18);
 
+        //measured once, the height of the text does not depend on the digits
+        private double fpsTextHeight = -1;
+
         private BooleanProperty running = new SimpleBooleanProperty(false);
 
-        public void setUpdateInterval(long interval) {
-            this.updateInterval = timeUnit.toNanos(interval);
+        /**
+         * @param maxFps
+         *         The maximum number of frames drawn per second, 0 if unlimited
+         */
+        public void setMaxFps(int maxFps) {
+            this.updateInterval = maxFps > 0 ? TimeUnit.SECONDS.toNanos(1) / maxFps : 0;
         }
 
         @Override
@@ -156,24 +298,60 @@ public class GlcdScreen extends Canvas {
 
         @Override
         public void handle(long now) {
-            fpsCounter.pulse(now);
-
             if (!running.get())
                 running.set(true);
+            render(now);
+        }
+
+        /**
+         * Redraws the screen if a new frame has been published or its appearance has changed
+         *
+         * @param now
+         *         The timestamp of the current pulse in nanoseconds
+         *
+         * @return True if the canvas has been drawn to
+         */
+        @Override
+        public boolean render(long now) {
+            fpsCounter.pulse(now);
 
-            if ((now - lastUpdate) >= updateInterval) {
+            if ((now - lastUpdate) < updateInterval)
+                return false;
+
+            //only redraw if a new frame has been published or the appearance of the screen has changed
+            boolean changed = invalidatedDisplay.get() || hasNewFrame();
+            boolean fpsChanged = isShowFPS() && fpsCounter.getLastCount() != lastFpsCount;
+            boolean drawn = false;
+            if (isRasterized() && isBackgroundRendering()) {
+                if (renderWorker.hasCompleted() || fpsChanged) {
+                    if (renderWorker.present(gc))
+                        fpsCounter.count();
+                    drawn = true;
+                }
+                //the request is kept until the worker is free to take it
+                if (changed && renderWorker.submit())
+                    invalidatedDisplay.set(false);
+            } else if (changed || fpsChanged) {
+                invalidatedDisplay.set(false);
                 draw();
-                fpsCounter.count();
-                lastUpdate = now;
+                if (changed)
+                    fpsCounter.count();
+                drawn = true;
             }
+            if (!drawn)
+                return false;
+            lastUpdate = now;
 
             if (isShowFPS()) {
+                lastFpsCount = fpsCounter.getLastCount();
                 gc.setFont(fpsFont);
                 gc.setFill(backlightColor.get().invert());
                 String text = "FPS: " + String.valueOf(fpsCounter.getLastCount());
-                double height = NodeUtil.computeStringHeight(text, fpsFont);
-                gc.fillText(text, margin.get() + pixelSize.get(), height + margin.get());
+                if (fpsTextHeight < 0)
+                    fpsTextHeight = NodeUtil.computeStringHeight(text, fpsFont);
+                gc.fillText(text, margin.get() + pixelSize.get(), fpsTextHeight + margin.get());
             }
+            return true;
         }
 
         private boolean isRunning() {
@@ -219,7 +397,12 @@ public class GlcdScreen extends Canvas {
         effectProperty().bind(Bindings.createObjectBinding((Callable<Effect>) () -> isDropShadowVisible() ? displayDropShadow : null, dropShadowVisible));
 
         renderer = new Renderer();
-        renderer.setUpdateInterval(1);
+        renderer.setMaxFps(getMaxFps());
+
+        //any change to the appearance of the screen requires a redraw
+        InvalidationListener redraw = observable -> invalidatedDisplay.set(true);
+        for (Observable property : new Observable[] {pixelSize, spacing, margin, activePixelColor, inactivePixelColor, backlightColor, contrast, pixelShape, gradientBacklight, rasterized, widthProperty(), heightProperty()})
+            property.addListener(redraw);
 
         if (autoStart)
             renderer.start();
@@ -256,12 +439,26 @@ public class GlcdScreen extends Canvas {
 
     //<editor-fold desc="Start/Stop methods">
     public void start() {
-        if (!renderer.isRunning())
+        if (renderer.isRunning())
+            return;
+        RenderScheduler scheduler = this.scheduler.get();
+        if (scheduler != null) {
+            activeScheduler = scheduler;
+            scheduler.add(renderer);
+            renderer.setRunning(true);
+        } else {
             renderer.start();
+        }
     }
 
     public void stop() {
-        renderer.stop();
+        if (activeScheduler != null) {
+            activeScheduler.remove(renderer);
+            activeScheduler = null;
+            renderer.setRunning(false);
+        } else {
+            renderer.stop();
+        }
     }
     //</editor-fold>
 
@@ -350,6 +547,95 @@ public class GlcdScreen extends Canvas {
         this.dropShadowVisible.set(dropShadowVisible);
     }
 
+    public boolean isRasterized() {
+        return rasterized.get();
+    }
+
+    /**
+     * If true, the screen is rasterized into an image and drawn with a single call instead of issuing a canvas command
+     * for every pixel of the display.
+     *
+     * @return The rasterized property
+     */
+    public BooleanProperty rasterizedProperty() {
+        return rasterized;
+    }
+
+    public void setRasterized(boolean rasterized) {
+        this.rasterized.set(rasterized);
+    }
+
+    public boolean isBackgroundRendering() {
+        return backgroundRendering.get();
+    }
+
+    /**
+     * If true (and the screen is rasterized), frames are rasterized on a background thread while the screen is running
+     * and the FX thread only presents the completed images.
+     *
+     * @return The background rendering property
+     */
+    public BooleanProperty backgroundRenderingProperty() {
+        return backgroundRendering;
+    }
+
+    public void setBackgroundRendering(boolean backgroundRendering) {
+        this.backgroundRendering.set(backgroundRendering);
+    }
+
+    public RasterCache getRasterCache() {
+        return rasterCache.get();
+    }
+
+    /**
+     * The cache of rasterized frames used by this screen (may be shared between screens). If null, every frame is
+     * rasterized from scratch.
+     *
+     * @return The raster cache property
+     */
+    public ObjectProperty<RasterCache> rasterCacheProperty() {
+        return rasterCache;
+    }
+
+    public void setRasterCache(RasterCache rasterCache) {
+        this.rasterCache.set(rasterCache);
+    }
+
+    public RenderScheduler getScheduler() {
+        return scheduler.get();
+    }
+
+    /**
+     * The scheduler driving this screen. If null (the default), the screen is driven by its own animation timer.
+     *
+     * @return The scheduler property
+     */
+    public ObjectProperty<RenderScheduler> schedulerProperty() {
+        return scheduler;
+    }
+
+    public void setScheduler(RenderScheduler scheduler) {
+        this.scheduler.set(scheduler);
+    }
+
+    public int getMaxFps() {
+        return maxFps.get();
+    }
+
+    /**
+     * The maximum number of frames drawn per second while the screen is running. Frames are only drawn when a new frame
+     * has been published or the appearance of the screen has changed, regardless of this limit.
+     *
+     * @return The max FPS property (0 = unlimited)
+     */
+    public IntegerProperty maxFpsProperty() {
+        return maxFps;
+    }
+
+    public void setMaxFps(int maxFps) {
+        this.maxFps.set(maxFps);
+    }
+
     public PixelBuffer getBuffer() {
         return buffer.get();
     }
@@ -362,6 +648,18 @@ public class GlcdScreen extends Canvas {
         this.buffer.set(pixelBuffer);
     }
 
+    public PixelBuffer getHistoryFrame() {
+        return historyFrame.get();
+    }
+
+    public ObjectProperty<PixelBuffer> historyFrameProperty() {
+        return historyFrame;
+    }
+
+    public void setHistoryFrame(PixelBuffer historyFrame) {
+        this.historyFrame.set(historyFrame);
+    }
+
     public PixelShape getPixelShape() {
         return pixelShape.get();
     }
@@ -514,11 +812,26 @@ public class GlcdScreen extends Canvas {
     }
 
     /**
-     * Method to re-draw the canvas. This is a no-op if the internal animation timer is already running.
+     * Takes a copy of the frame currently shown on the screen, e.g. to render it off the FX thread with a {@link
+     * com.ibasco.glcdemulator.utils.FrameImageWriter}. Must be called from the FX thread.
+     *
+     * @return A copy of the frame or null if nothing has been drawn yet
+     */
+    public PixelBuffer captureFrame() {
+        renderWorker.await();
+        PixelBuffer frame = displayedFrame;
+        return frame != null ? frame.copy() : null;
+    }
+
+    /**
+     * Method to re-draw the canvas. If the internal animation timer is already running, the canvas is re-drawn on its
+     * next update.
      */
     public void refresh() {
         if (!renderer.isRunning())
             draw();
+        else
+            invalidatedDisplay.set(true);
     }
     //</editor-fold>
 
@@ -531,30 +844,108 @@ public class GlcdScreen extends Canvas {
 
         GraphicsContext gc = getGraphicsContext2D();
 
+        double margin = this.margin.get();
+
+        //the frame being rendered in the background stays valid until it has been rasterized
+        renderWorker.await();
+        PixelBuffer buffer = acquireFrame();
+
+        if (isRasterized())
+            drawRasterized(gc, buffer);
+        else
+            drawPixels(gc, buffer);
+
+        if (showWatermark.compareAndSet(true, false) && !StringUtils.isBlank(watermarkText.get())) {
+            gc.setLineWidth(1.0);
+            gc.setEffect(displayDropShadow);
+            gc.setFill(watermarkColor.get());
+            gc.setFont(watermarkFont.get());
+            double strWidth = NodeUtil.computeStringWidth(watermarkText.get(), watermarkFont.get());
+            double strHeight = NodeUtil.computeStringHeight(watermarkText.get(), watermarkFont.get());
+            gc.fillText(watermarkText.get(), getWidth() - (strWidth + margin), (getHeight() - strHeight) + (margin / 2.0d));
+            gc.setFill(null);
+            gc.setEffect(null);
+            gc.setFont(null);
+        }
+    }
+
+    /**
+     * Rasterizes the frame into an image and draws it to the canvas in a single call
+     */
+    private void drawRasterized(GraphicsContext gc, PixelBuffer buffer) {
+        configureRasterizer(rasterizer);
+        rasterizer.rasterize(buffer);
+        upload(rasterizer);
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.drawImage(rasterImage, 0, 0);
+    }
+
+    /**
+     * Applies the current display settings to the rasterizer. Must be called from the FX thread.
+     */
+    private void configureRasterizer(PixelRasterizer rasterizer) {
+        Color backlight = getBacklightColor();
+        rasterizer.setPixelSize(pixelSize.get());
+        rasterizer.setSpacing(spacing.get());
+        rasterizer.setMargin(margin.get());
+        rasterizer.setPixelShape(pixelShape.get());
+        rasterizer.setActiveColor(toArgb(activePixelColor.get()));
+        rasterizer.setInactiveColor(toArgb(computeInactivePixelColor()));
+        rasterizer.setBacklightColor(toArgb(backlight), toArgb(isGradientBacklight() ? backlight.darker().darker() : backlight));
+        rasterizer.setCache(rasterCache.get());
+    }
+
+    /**
+     * Copies the last image produced by the rasterizer to the screen image with a single call
+     */
+    private void upload(PixelRasterizer rasterizer) {
+        int width = rasterizer.getWidth(), height = rasterizer.getHeight();
+        if (rasterImage == null || rasterImage.getWidth() != width || rasterImage.getHeight() != height)
+            rasterImage = new WritableImage(width, height);
+        rasterImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), rasterizer.getPixels(), 0, width);
+    }
+
+    /**
+     * @return True if a frame has been published since the last frame has been acquired
+     */
+    private boolean hasNewFrame() {
+        PixelBuffer buffer = this.buffer.get();
+        return buffer != null && historyFrame.get() == null && buffer.hasPublishedFrame();
+    }
+
+    /**
+     * Returns the frame to be drawn: the frame recalled from history if set, otherwise the latest complete frame (the
+     * live buffer may be updated by another thread while we draw). The returned frame stays valid until the next call.
+     */
+    private PixelBuffer acquireFrame() {
+        PixelBuffer frame = historyFrame.get();
+        return displayedFrame = (frame != null ? frame : this.buffer.get().getPublishedFrame());
+    }
+
+    /**
+     * Draws the frame to the canvas one pixel at a time
+     */
+    private void drawPixels(GraphicsContext gc, PixelBuffer buffer) {
         double lcdWidth = displayWidth.get();
         double lcdHeight = displayHeight.get();
         double pixelSize = this.pixelSize.get();
-        double pixelWidth = pixelSize;
-        double pixelHeight = pixelSize;
         double spacing = this.spacing.get();
         double margin = this.margin.get();
-        PixelShape pixelShape = this.pixelShape.get();
 
         //Clear the canvas
         gc.clearRect(0, 0, getWidth(), getHeight());
 
         //Set backlight color
         if (isGradientBacklight()) {
-            gc.setFill(createGradientBacklightColor());
+            gc.setFill(getGradientBacklightColor());
         } else {
             gc.setFill(getBacklightColor());
         }
         gc.fillRect(0, 0, getWidth(), getHeight());
 
-        //Set inactive pixel color
-        gc.setFill(computeInactivePixelColor());
-
-        PixelBuffer buffer = this.buffer.get();
+        Color activeColor = activePixelColor.get();
+        Color inactiveColor = computeInactivePixelColor();
+        boolean circle = PixelShape.CIRCLE.equals(pixelShape.get());
 
         //note x and y represents the actual pixel coordinates of the canvas
         //while pixelX and pixelY represents the coordinates of the GLCD
@@ -563,38 +954,29 @@ public class GlcdScreen extends Canvas {
             //process one column at a time
             for (int pixelX = 0; pixelX < lcdWidth; pixelX++) {
                 int pixelState = buffer.read(pixelX, pixelY);
-                if (pixelState == -1)
-                    pixelState = 0;
-                drawPixel(x, y, pixelState);
+                drawPixel(gc, x, y, pixelState > 0 ? activeColor : inactiveColor, circle);
                 x += pixelSize + spacing;
             }
             //reset x including the space and margin properties
             x = spacing + margin;
             y += pixelSize + spacing;
         }
-
-        if (showWatermark.compareAndSet(true, false) && !StringUtils.isBlank(watermarkText.get())) {
-            gc.setLineWidth(1.0);
-            gc.setEffect(displayDropShadow);
-            gc.setFill(watermarkColor.get());
-            gc.setFont(watermarkFont.get());
-            double strWidth = NodeUtil.computeStringWidth(watermarkText.get(), watermarkFont.get());
-            double strHeight = NodeUtil.computeStringHeight(watermarkText.get(), watermarkFont.get());
-            gc.fillText(watermarkText.get(), getWidth() - (strWidth + margin), (getHeight() - strHeight) + (margin / 2.0d));
-            gc.setFill(null);
-            gc.setEffect(null);
-            gc.setFont(null);
-        }
     }
 
-    private Paint createGradientBacklightColor() {
-        return new LinearGradient(0, 0, 0,
-                1,
-                true,
-                CycleMethod.NO_CYCLE,
-                new Stop(0.0, this.backlightColor.get()),
-                new Stop(1.0, this.backlightColor.get().darker().darker())
-        );
+    /**
+     * @return The gradient paint of the backlight, re-created only when the backlight color changes
+     */
+    private Paint getGradientBacklightColor() {
+        if (gradientBacklightColor == null) {
+            gradientBacklightColor = new LinearGradient(0, 0, 0,
+                    1,
+                    true,
+                    CycleMethod.NO_CYCLE,
+                    new Stop(0.0, this.backlightColor.get()),
+                    new Stop(1.0, this.backlightColor.get().darker().darker())
+            );
+        }
+        return gradientBacklightColor;
     }
 
 
@@ -605,13 +987,14 @@ public class GlcdScreen extends Canvas {
      *         The X-coordinate of the canvas.
      * @param y
      *         The Y-coordinate of the canvas.
-     * @param state
-     *         1 = on, 0 = off
+     * @param color
+     *         The color of the pixel
+     * @param circle
+     *         True to draw a circular pixel, otherwise a rectangle is drawn
      */
-    private void drawPixel(double x, double y, int state) {
-        GraphicsContext gc = getGraphicsContext2D();
-        gc.setFill(state > 0 ? activePixelColor.get() : computeInactivePixelColor());
-        if (pixelShape.get().equals(PixelShape.CIRCLE)) {
+    private void drawPixel(GraphicsContext gc, double x, double y, Color color, boolean circle) {
+        gc.setFill(color);
+        if (circle) {
             gc.fillOval(x, y, pixelSize.get(), pixelSize.get());
         } else {
             gc.fillRect(x, y, pixelSize.get(), pixelSize.get());
@@ -0,0 +1,183 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: RenderScheduler.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.controls;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives any number of {@link GlcdScreen} instances from a single animation timer, instead of each screen running its
+ * own. Screens are only redrawn if their frame or appearance has changed.
+ *
+ * <p>The time spent on the FX thread per pulse is limited by a budget. Screens are visited round-robin and once the
+ * budget has been used up, the remaining screens are visited first on the next pulse, so a single busy screen cannot
+ * starve the others. At least one screen is visited per pulse.</p>
+ *
+ * <p>All methods must be called from the FX thread.</p>
+ *
+ * @author Rafael Ibasco
+ * @see GlcdScreen#setScheduler(RenderScheduler)
+ */
+public class RenderScheduler {
+
+    private static final long DEFAULT_BUDGET = TimeUnit.MILLISECONDS.toNanos(8);
+
+    /**
+     * A screen driven by the scheduler
+     */
+    interface Target {
+        /**
+         * Redraws the screen if needed
+         *
+         * @param now
+         *         The timestamp of the current pulse in nanoseconds
+         *
+         * @return True if the screen has been drawn to
+         */
+        boolean render(long now);
+    }
+
+    private final List<Target> targets = new ArrayList<>();
+
+    //created once the first screen is added
+    private AnimationTimer timer;
+
+    private long budget = DEFAULT_BUDGET;
+
+    //index of the first screen to visit on the next pulse
+    private int cursor;
+
+    private boolean running;
+
+    /**
+     * Adds a screen to the scheduler, starting the timer if needed. Use {@link GlcdScreen#start()} with a scheduler set
+     * instead of calling this directly.
+     */
+    void add(Target target) {
+        if (targets.contains(target))
+            return;
+        targets.add(target);
+        if (!running) {
+            startTimer();
+            running = true;
+        }
+    }
+
+    /**
+     * Removes a screen from the scheduler, stopping the timer once no screens are left.
+     */
+    void remove(Target target) {
+        int index = targets.indexOf(target);
+        if (index < 0)
+            return;
+        targets.remove(index);
+        if (index < cursor)
+            cursor--;
+        if (targets.isEmpty() && running) {
+            stopTimer();
+            running = false;
+        }
+    }
+
+    /**
+     * Visits the screens round-robin until all have been visited or the budget has been used up
+     *
+     * @param now
+     *         The timestamp of the current pulse in nanoseconds
+     */
+    void pulse(long now) {
+        int count = targets.size();
+        if (count == 0)
+            return;
+        long start = nanoTime();
+        for (int visited = 0; visited < count; visited++) {
+            if (cursor >= targets.size())
+                cursor = 0;
+            Target target = targets.get(cursor++);
+            target.render(now);
+            if ((nanoTime() - start) >= budget)
+                return;
+        }
+        if (cursor >= targets.size())
+            cursor = 0;
+    }
+
+    void startTimer() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    pulse(now);
+                }
+            };
+        }
+        timer.start();
+    }
+
+    void stopTimer() {
+        timer.stop();
+    }
+
+    /**
+     * @return The current time in nanoseconds, used to measure the time spent per pulse
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @return The number of screens currently driven by this scheduler
+     */
+    public int getScreenCount() {
+        return targets.size();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return The maximum time spent rendering per pulse (in nanoseconds)
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param budget
+     *         The maximum time spent rendering per pulse
+     * @param unit
+     *         The unit of the budget
+     */
+    public void setBudget(long budget, TimeUnit unit) {
+        if (budget <= 0)
+            throw new IllegalArgumentException("Budget must be greater than zero");
+        this.budget = unit.toNanos(budget);
+    }
+}
@@ -27,19 +27,57 @@ package com.ibasco.glcdemulator.emulator;
 
 import com.ibasco.glcdemulator.utils.PixelBuffer;
 
+import java.nio.ByteBuffer;
+
 abstract public class BufferLayout {
 
     private PixelBuffer buffer;
 
+    private boolean incremental;
+
+    private int duplicateFrames;
+
     abstract public void processByte(byte data);
 
     public void processBuffer(byte[] data) {
-        for (byte d : data)
-            processByte(d);
+        processBuffer(data, 0, data.length);
+    }
+
+    /**
+     * Process a range of bytes. Layouts override this to process whole blocks at a time.
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes to process
+     */
+    public void processBuffer(byte[] data, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++)
+            processByte(data[i]);
+    }
+
+    /**
+     * Process the remaining bytes of the buffer
+     *
+     * @param data
+     *         The data to process, consumed from its current position to its limit
+     */
+    public void processBuffer(ByteBuffer data) {
+        while (data.hasRemaining())
+            processByte(data.get());
     }
 
     abstract public void reset();
 
+    /**
+     * Writes any data collected but not yet applied to the display buffer. Layouts which write every byte immediately
+     * do not need to override this.
+     */
+    public void flush() {
+    }
+
     abstract public void initialize();
 
     public void setBuffer(PixelBuffer buffer) {
@@ -49,4 +87,53 @@ abstract public class BufferLayout {
     public PixelBuffer getBuffer() {
         return this.buffer;
     }
+
+    /**
+     * @return True if completed parts of a frame are published as soon as they have been written
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * When enabled, layouts which support it publish each completed part of a frame (e.g. a page) as soon as it has
+     * been written to the display buffer instead of leaving it to the caller to publish complete frames.
+     *
+     * @param incremental
+     *         True to publish partial frames
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return The number of frames published by this layout which were dropped as duplicates (see {@link
+     * PixelBuffer#publish()}) since the last call
+     */
+    public int pollDuplicateFrames() {
+        int count = duplicateFrames;
+        duplicateFrames = 0;
+        return count;
+    }
+
+    /**
+     * Publishes the display buffer. Layouts which publish frames on their own use this so that dropped duplicate frames
+     * are reported through {@link #pollDuplicateFrames()}.
+     *
+     * @return True if the frame was published, false if it was identical to the last published frame
+     */
+    protected boolean publish() {
+        if (buffer.publish())
+            return true;
+        duplicateFrames++;
+        return false;
+    }
+
+    /**
+     * @return True if this layout publishes frames on its own, in which case callers must not publish after a full
+     * buffer worth of bytes has been processed. False by default, layouts which publish override this.
+     */
+    public boolean isSelfPublishing() {
+        return false;
+    }
 }
@@ -70,6 +70,21 @@ public class BufferLayoutFactory {
         return bLayout;
     }
 
+    /**
+     * Creates a layout for tile addressed updates. Unlike the other layouts, it does not depend on the buffer type of
+     * the display.
+     *
+     * @param buffer
+     *         The display buffer to write to
+     *
+     * @return A new {@link TileBufferLayout}
+     */
+    public static BufferLayout createTileBufferLayout(PixelBuffer buffer) {
+        BufferLayout bLayout = createInstance(TileBufferLayout.class);
+        bLayout.setBuffer(buffer);
+        return bLayout;
+    }
+
     private static Class<? extends BufferLayout> retrieveLayoutClass(GlcdBufferType type) {
         Class<? extends BufferLayout> layoutClass = null;
         switch (type) {
@@ -26,6 +26,8 @@
 package com.ibasco.glcdemulator.emulator;
 
 import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
 import com.ibasco.ucgdisplay.drivers.glcd.GlcdDriverEventHandler;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
 
@@ -76,6 +78,51 @@ public interface GlcdEmulator extends GlcdDriverEventHandler {
      */
     BufferLayout getBufferLayout();
 
+    /**
+     * Process a run of bytes sent with the data/command line high (data), without creating an event per byte. The
+     * default implementation adapts the run to {@link #onByteEvent(U8g2ByteEvent)}, emulators should override this
+     * with a native implementation.
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    default void onData(byte[] data, int offset, int length) {
+        onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1));
+        for (int i = offset, end = offset + length; i < end; i++)
+            onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, Byte.toUnsignedInt(data[i])));
+    }
+
+    /**
+     * Process a run of bytes sent with the data/command line low (commands), without creating an event per byte. The
+     * default implementation adapts the run to {@link #onByteEvent(U8g2ByteEvent)}, emulators should override this
+     * with a native implementation.
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    default void onCommand(byte[] data, int offset, int length) {
+        onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0));
+        for (int i = offset, end = offset + length; i < end; i++)
+            onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, Byte.toUnsignedInt(data[i])));
+    }
+
+    /**
+     * Writes any data received but not yet applied to the display buffer (see {@link BufferLayout#flush()}). Should be
+     * called before a frame is published.
+     */
+    default void flush() {
+        if (getBufferLayout() != null)
+            getBufferLayout().flush();
+    }
+
     /**
      * Reset internal properties back to their initial state.
      */
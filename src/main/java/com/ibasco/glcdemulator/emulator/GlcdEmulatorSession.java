@@ -0,0 +1,200 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: GlcdEmulatorSession.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.glcdemulator.utils.ByteProcessStats;
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import com.ibasco.ucgdisplay.drivers.glcd.GlcdDisplay;
+import com.ibasco.ucgdisplay.drivers.glcd.GlcdDriverEventHandler;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An isolated emulated display: bundles a {@link GlcdEmulator}, its {@link BufferLayout}, the {@link PixelBuffer} it
+ * draws into and the statistics of the session. Sessions do not share any state, so any number of them can be driven
+ * in the same process (e.g. one per test or per connected client), each from its own thread.
+ * <p>
+ * The session can be used directly as the event handler of a virtual driver (see {@link
+ * com.ibasco.glcdemulator.DriverFactory#createVirtual(GlcdDisplay, GlcdBusInterface, GlcdDriverEventHandler)}). Frames
+ * are published with {@link #publish()} once the driver is done sending a frame.
+ * <p>
+ * Statistics are only counted here, rates are computed by whoever pulses the counters of {@link #getStats()} (this
+ * requires the JavaFX toolkit, a session itself does not).
+ *
+ * @author Rafael Ibasco
+ */
+public class GlcdEmulatorSession implements GlcdDriverEventHandler {
+
+    private final GlcdDisplay display;
+
+    private final GlcdEmulator emulator;
+
+    private final ByteProcessStats stats;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final AtomicLong totalFrames = new AtomicLong();
+
+    /**
+     * Creates a session with a new buffer matching the size of the display
+     *
+     * @param display
+     *         The display to emulate
+     * @param busInterface
+     *         The bus interface, null to use the default bus of the emulator
+     */
+    public GlcdEmulatorSession(GlcdDisplay display, GlcdBusInterface busInterface) {
+        this(display, busInterface, null, new ByteProcessStats());
+    }
+
+    /**
+     * Creates a session
+     *
+     * @param display
+     *         The display to emulate
+     * @param busInterface
+     *         The bus interface, null to use the default bus of the emulator
+     * @param buffer
+     *         The buffer to draw into, null to create one matching the size of the display
+     * @param stats
+     *         The statistics to update (e.g. to display them), must not be shared with other sessions
+     */
+    public GlcdEmulatorSession(GlcdDisplay display, GlcdBusInterface busInterface, PixelBuffer buffer, ByteProcessStats stats) {
+        if (stats == null)
+            throw new IllegalArgumentException("Stats cannot be null");
+        this.display = display;
+        this.emulator = GlcdEmulatorFactory.createFrom(display, busInterface, buffer);
+        this.stats = stats;
+    }
+
+    @Override
+    public void onByteEvent(U8g2ByteEvent event) {
+        emulator.onByteEvent(event);
+        if (event.getMessage() == U8g2Message.U8X8_MSG_BYTE_SEND)
+            countBytes(1);
+    }
+
+    /**
+     * Process a run of display data (see {@link GlcdEmulator#onData(byte[], int, int)})
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    public void onData(byte[] data, int offset, int length) {
+        emulator.onData(data, offset, length);
+        countBytes(length);
+    }
+
+    /**
+     * Process a run of commands (see {@link GlcdEmulator#onCommand(byte[], int, int)})
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    public void onCommand(byte[] data, int offset, int length) {
+        emulator.onCommand(data, offset, length);
+        countBytes(length);
+    }
+
+    private void countBytes(int count) {
+        stats.getBytesPerFrame().getAndAdd(count);
+        stats.getByteCounter().count(count);
+        totalBytes.addAndGet(count);
+    }
+
+    /**
+     * Completes the current frame and publishes it to the listeners of the buffer
+     *
+     * @return True if the frame was published, false if it was identical to the previous frame
+     *
+     * @see PixelBuffer#publish()
+     */
+    public boolean publish() {
+        emulator.flush();
+        boolean published = getBuffer().publish();
+        if (!published)
+            stats.countDuplicateFrame();
+        stats.setFrameSize(stats.getBytesPerFrame().getAndSet(0));
+        stats.getFpsCounter().count();
+        totalFrames.incrementAndGet();
+        return published;
+    }
+
+    /**
+     * Resets the emulator and the totals of this session. The buffer contents are kept.
+     */
+    public void reset() {
+        emulator.reset();
+        stats.getBytesPerFrame().set(0);
+        totalBytes.set(0);
+        totalFrames.set(0);
+    }
+
+    public GlcdDisplay getDisplay() {
+        return display;
+    }
+
+    public GlcdEmulator getEmulator() {
+        return emulator;
+    }
+
+    public BufferLayout getBufferLayout() {
+        return emulator.getBufferLayout();
+    }
+
+    public PixelBuffer getBuffer() {
+        return emulator.getBuffer();
+    }
+
+    public ByteProcessStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The number of data bytes received since the session was created or last reset
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * @return The number of frames completed since the session was created or last reset
+     */
+    public long getTotalFrames() {
+        return totalFrames.get();
+    }
+}
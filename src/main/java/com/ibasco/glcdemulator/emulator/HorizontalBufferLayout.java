@@ -28,6 +28,8 @@ package com.ibasco.glcdemulator.emulator;
 import com.ibasco.glcdemulator.utils.ByteUtils;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
 
+import java.nio.ByteBuffer;
+
 public class HorizontalBufferLayout extends BufferLayout {
     @Override
     public void processByte(byte data) {
@@ -38,6 +40,22 @@ public class HorizontalBufferLayout extends BufferLayout {
         }
     }
 
+    @Override
+    public void processBuffer(byte[] data, int offset, int length) {
+        processBuffer(ByteBuffer.wrap(data, offset, length));
+    }
+
+    @Override
+    public void processBuffer(ByteBuffer data) {
+        PixelBuffer buffer = getBuffer();
+        //rows are written in bulk up to the end of the buffer, then wrap around to the start
+        while (data.hasRemaining()) {
+            buffer.write(data, true);
+            if (buffer.remaining() == 0)
+                buffer.reset();
+        }
+    }
+
     @Override
     public void reset() {
         getBuffer().reset();
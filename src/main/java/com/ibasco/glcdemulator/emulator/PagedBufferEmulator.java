@@ -27,6 +27,12 @@ package com.ibasco.glcdemulator.emulator;
 
 import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
 
+/**
+ * Base class for emulators of paged display controllers. Data bytes are handed to {@link #processData(byte)}, which
+ * streams them into the buffer layout, command bytes are handed to {@link #processCommand(int)}.
+ *
+ * @author Rafael Ibasco
+ */
 abstract public class PagedBufferEmulator extends GlcdEmulatorBase {
     private GlcdRegisterSelect dataCommand;
 
@@ -38,12 +44,59 @@ abstract public class PagedBufferEmulator extends GlcdEmulatorBase {
                 break;
             case U8X8_MSG_BYTE_SEND:
                 if (GlcdRegisterSelect.DATA.equals(dataCommand)) {
-                    getBufferLayout().processByte((byte) event.getValue());
+                    processData((byte) event.getValue());
+                } else if (GlcdRegisterSelect.COMMAND.equals(dataCommand)) {
+                    processCommand(event.getValue());
                 }
-                //note: command instructions are ignored
                 break;
             default:
                 break;
         }
     }
+
+    @Override
+    public void onData(byte[] data, int offset, int length) {
+        dataCommand = GlcdRegisterSelect.DATA;
+        processData(data, offset, length);
+    }
+
+    @Override
+    public void onCommand(byte[] data, int offset, int length) {
+        dataCommand = GlcdRegisterSelect.COMMAND;
+        for (int i = offset, end = offset + length; i < end; i++)
+            processCommand(Byte.toUnsignedInt(data[i]));
+    }
+
+    /**
+     * Process a data byte
+     *
+     * @param data
+     *         The display data
+     */
+    protected void processData(byte data) {
+        getBufferLayout().processByte(data);
+    }
+
+    /**
+     * Process a run of data bytes
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    protected void processData(byte[] data, int offset, int length) {
+        getBufferLayout().processBuffer(data, offset, length);
+    }
+
+    /**
+     * Process a command byte. Commands are ignored unless the emulator overrides this.
+     *
+     * @param value
+     *         The unsigned command byte
+     */
+    protected void processCommand(int value) {
+    }
 }
@@ -0,0 +1,180 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PagedCommandTable.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+/**
+ * Describes the command set of a paged display controller: for every command, the bits identifying the opcode, the
+ * number of argument bytes following it and its effect on the address counters. The declarations are compiled into
+ * lookup arrays indexed by the command byte as they are added, so decoding a command never scans or allocates.
+ * <p>
+ * Commands not declared are ignored and have no arguments. If declarations overlap, the first one wins.
+ *
+ * @author Rafael Ibasco
+ * @see PagedControllerEmulator
+ */
+public final class PagedCommandTable {
+
+    /**
+     * The maximum number of argument bytes of a command
+     */
+    public static final int MAX_ARGUMENTS = 8;
+
+    /**
+     * The effect of a command on the address counters of the controller
+     */
+    public enum Effect {
+        /**
+         * No effect on the address counters (e.g. contrast, display on/off)
+         */
+        NONE,
+        /**
+         * Sets the lower 4 bits of the column address to the operand
+         */
+        COLUMN_LOW,
+        /**
+         * Sets the upper bits of the column address to the operand
+         */
+        COLUMN_HIGH,
+        /**
+         * Sets the column address to the operand
+         */
+        COLUMN,
+        /**
+         * Sets the page address to the operand
+         */
+        PAGE,
+        /**
+         * Sets the memory addressing mode to the first argument (0 = horizontal, 1 = vertical, 2 = page)
+         */
+        ADDRESSING_MODE,
+        /**
+         * Sets the column range to the first (start) and second (end) argument
+         */
+        COLUMN_RANGE,
+        /**
+         * Sets the page range to the first (start) and second (end) argument
+         */
+        PAGE_RANGE
+    }
+
+    private final Effect[] effects = new Effect[256];
+
+    private final byte[] argumentCounts = new byte[256];
+
+    private final byte[] operandMasks = new byte[256];
+
+    /**
+     * Declares a command without arguments
+     *
+     * @param opcode
+     *         The opcode bits of the command
+     * @param mask
+     *         The bits of a command byte identifying the opcode, the remaining bits are the operand
+     * @param effect
+     *         The effect of the command
+     *
+     * @return This table
+     */
+    public PagedCommandTable command(int opcode, int mask, Effect effect) {
+        return command(opcode, mask, 0, effect);
+    }
+
+    /**
+     * Declares a single byte command with arguments but no effect on the address counters. The arguments are skipped.
+     *
+     * @param opcode
+     *         The command byte
+     * @param arguments
+     *         The number of argument bytes following the command
+     *
+     * @return This table
+     */
+    public PagedCommandTable command(int opcode, int arguments) {
+        return command(opcode, 0xFF, arguments, Effect.NONE);
+    }
+
+    /**
+     * Declares a command
+     *
+     * @param opcode
+     *         The opcode bits of the command
+     * @param mask
+     *         The bits of a command byte identifying the opcode, the remaining bits are the operand
+     * @param arguments
+     *         The number of argument bytes following the command
+     * @param effect
+     *         The effect of the command
+     *
+     * @return This table
+     */
+    public PagedCommandTable command(int opcode, int mask, int arguments, Effect effect) {
+        if (effect == null)
+            throw new IllegalArgumentException("Effect cannot be null");
+        if (arguments < 0 || arguments > MAX_ARGUMENTS)
+            throw new IllegalArgumentException("Invalid number of arguments: " + arguments);
+        if ((opcode & ~mask & 0xFF) != 0)
+            throw new IllegalArgumentException(String.format("Opcode 0x%02X has bits outside of the mask 0x%02X", opcode, mask));
+        for (int value = 0; value < 256; value++) {
+            if ((value & mask) == opcode && effects[value] == null) {
+                effects[value] = effect;
+                argumentCounts[value] = (byte) arguments;
+                operandMasks[value] = (byte) ~mask;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param value
+     *         The unsigned command byte
+     *
+     * @return The effect of the command
+     */
+    public Effect getEffect(int value) {
+        Effect effect = effects[value];
+        return effect == null ? Effect.NONE : effect;
+    }
+
+    /**
+     * @param value
+     *         The unsigned command byte
+     *
+     * @return The number of argument bytes following the command
+     */
+    public int getArgumentCount(int value) {
+        return argumentCounts[value];
+    }
+
+    /**
+     * @param value
+     *         The unsigned command byte
+     *
+     * @return The operand bits of the command (e.g. the page of a page address command)
+     */
+    public int getOperand(int value) {
+        return value & operandMasks[value] & 0xFF;
+    }
+}
@@ -0,0 +1,367 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PagedControllerEmulator.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect;
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout.AddressingMode;
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+
+import java.util.Arrays;
+
+/**
+ * Generic emulator of paged display controllers. The command set of the controller is described by a {@link
+ * PagedCommandTable}, commands are decoded through the table and applied to the address counters of the controller,
+ * data is written at the addressed position by a {@link VerticalBufferLayout}.
+ * <p>
+ * Controllers made of several chips side by side (e.g. KS0108) are supported: each chip covers its own range of
+ * columns and keeps its own address counters. The chips receiving commands and data are selected at the start of a
+ * transfer, all chips are selected until then.
+ *
+ * @author Rafael Ibasco
+ */
+abstract public class PagedControllerEmulator extends PagedBufferEmulator {
+
+    /**
+     * Center the display within the display RAM (see {@link #setColumnOffset(int)})
+     */
+    public static final int CENTERED = -1;
+
+    private final PagedCommandTable commands;
+
+    private final int ramColumns;
+
+    private final int chipCount;
+
+    private final AddressingMode addressingMode;
+
+    private int columnOffset;
+
+    private VerticalBufferLayout[] chips = new VerticalBufferLayout[0];
+
+    //column address of each chip (in display RAM columns) which is outside of the display, -1 while the cursor of the
+    //chip holds the column address
+    private int[] columns;
+
+    //column of the display buffer where each chip starts
+    private int[] chipStart;
+
+    private int chipWidth;
+
+    private int selectedChips;
+
+    //effect of the command waiting for its arguments
+    private Effect command;
+
+    private int commandOperand;
+
+    private final int[] arguments = new int[PagedCommandTable.MAX_ARGUMENTS];
+
+    private int argumentCount;
+
+    private int argumentIndex;
+
+    /**
+     * @param commands
+     *         The command set of the controller
+     * @param ramColumns
+     *         The number of columns of the display RAM of a chip
+     * @param chipCount
+     *         The number of chips, each covering ramColumns columns of the display
+     * @param columnOffset
+     *         The display RAM column shown as the first column of the display, {@link #CENTERED} to center the display
+     *         within the display RAM
+     * @param addressingMode
+     *         The addressing mode of the chips after a reset. Controllers which only support page addressing use
+     *         {@link AddressingMode#PAGE}, so the column address wraps around within the page.
+     */
+    protected PagedControllerEmulator(PagedCommandTable commands, int ramColumns, int chipCount, int columnOffset, AddressingMode addressingMode) {
+        if (commands == null)
+            throw new IllegalArgumentException("Command table cannot be null");
+        if (chipCount < 1 || chipCount > 8)
+            throw new IllegalArgumentException("Invalid number of chips: " + chipCount);
+        if (addressingMode == null)
+            throw new IllegalArgumentException("Addressing mode cannot be null");
+        this.commands = commands;
+        this.ramColumns = ramColumns;
+        this.chipCount = chipCount;
+        this.columnOffset = columnOffset;
+        this.addressingMode = addressingMode;
+        this.columns = new int[chipCount];
+        Arrays.fill(columns, -1);
+        this.selectedChips = (1 << chipCount) - 1;
+    }
+
+    /**
+     * Sets the display RAM column which is shown as the first column of the display. Displays narrower than the
+     * display RAM are often wired to the middle of it (e.g. a 128 column display on the 132 column RAM of the SH1106
+     * starts at column 2).
+     *
+     * @param columnOffset
+     *         The display RAM column of the first display column, {@link #CENTERED} to center the display within the
+     *         display RAM
+     */
+    public void setColumnOffset(int columnOffset) {
+        this.columnOffset = columnOffset;
+    }
+
+    /**
+     * @return The display RAM column shown as the first column of the display
+     */
+    public int getColumnOffset() {
+        if (columnOffset >= 0)
+            return columnOffset;
+        return Math.max(0, (ramColumns - getBuffer().getWidth()) / 2);
+    }
+
+    @Override
+    public void setBufferLayout(BufferLayout layout) {
+        super.setBufferLayout(layout);
+        initializeChips();
+    }
+
+    @Override
+    public void onByteEvent(U8g2ByteEvent event) {
+        if (event.getMessage() == U8g2Message.U8X8_MSG_BYTE_START_TRANSFER) {
+            //chip select lines, one bit per chip
+            if (chipCount > 1)
+                selectedChips = event.getValue() & ((1 << chipCount) - 1);
+            return;
+        }
+        super.onByteEvent(event);
+    }
+
+    @Override
+    protected void processData(byte data) {
+        VerticalBufferLayout[] chips = this.chips;
+        for (int i = 0; i < chips.length; i++) {
+            if (((selectedChips >>> i) & 0x1) != 0 && chips[i] != null)
+                chips[i].processByte(data);
+        }
+    }
+
+    @Override
+    protected void processData(byte[] data, int offset, int length) {
+        VerticalBufferLayout[] chips = this.chips;
+        for (int i = 0; i < chips.length; i++) {
+            if (((selectedChips >>> i) & 0x1) != 0 && chips[i] != null)
+                chips[i].processBuffer(data, offset, length);
+        }
+    }
+
+    @Override
+    protected void processCommand(int value) {
+        //collect the arguments of a multi-byte command
+        if (argumentIndex < argumentCount) {
+            arguments[argumentIndex++] = value;
+            if (argumentIndex == argumentCount) {
+                argumentCount = 0;
+                argumentIndex = 0;
+                execute(command, commandOperand);
+            }
+            return;
+        }
+        int count = commands.getArgumentCount(value);
+        if (count > 0) {
+            command = commands.getEffect(value);
+            commandOperand = commands.getOperand(value);
+            argumentCount = count;
+            argumentIndex = 0;
+        } else {
+            execute(commands.getEffect(value), commands.getOperand(value));
+        }
+    }
+
+    /**
+     * Applies a command to the address counters of the selected chips
+     */
+    private void execute(Effect effect, int operand) {
+        if (effect == Effect.NONE)
+            return;
+        for (int i = 0; i < chips.length; i++) {
+            VerticalBufferLayout chip = chips[i];
+            if (((selectedChips >>> i) & 0x1) == 0 || chip == null)
+                continue;
+            switch (effect) {
+                case COLUMN_LOW:
+                    setColumn(i, (getColumn(i) & ~0x0F) | operand);
+                    break;
+                case COLUMN_HIGH:
+                    setColumn(i, (operand << 4) | (getColumn(i) & 0x0F));
+                    break;
+                case COLUMN:
+                    setColumn(i, operand);
+                    break;
+                case PAGE:
+                    moveCursor(i, operand, chip.getColumnIndex() - chipStart[i]);
+                    break;
+                case ADDRESSING_MODE:
+                    switch (arguments[0] & 0x03) {
+                        case 0:
+                            chip.setAddressingMode(AddressingMode.HORIZONTAL);
+                            break;
+                        case 1:
+                            chip.setAddressingMode(AddressingMode.VERTICAL);
+                            break;
+                        case 2:
+                            chip.setAddressingMode(AddressingMode.PAGE);
+                            break;
+                        default:
+                            //invalid
+                            break;
+                    }
+                    break;
+                case COLUMN_RANGE: {
+                    //only the part of the range within the display is kept
+                    int offset = getColumnOffset();
+                    int start = Math.max(0, arguments[0] - offset);
+                    int end = Math.min(chipWidth - 1, arguments[1] - offset);
+                    if (start <= end)
+                        chip.setColumnRange(chipStart[i] + start, chipStart[i] + end);
+                    break;
+                }
+                case PAGE_RANGE: {
+                    int start = arguments[0];
+                    int end = Math.min(getPageCount() - 1, arguments[1]);
+                    if (start <= end)
+                        chip.setPageRange(start, end);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the column address of a chip. Data writes advance the cursor of the chip, so the address is taken from the
+     * cursor unless it was set outside of the display.
+     *
+     * @param chip
+     *         The chip index
+     *
+     * @return The column address, in display RAM columns
+     */
+    private int getColumn(int chip) {
+        if (columns[chip] >= 0)
+            return columns[chip];
+        return chips[chip].getColumnIndex() - chipStart[chip] + getColumnOffset();
+    }
+
+    /**
+     * Sets the column address of a chip. Addresses outside of the display (e.g. while only one of the column nibbles
+     * has been received) are kept until the next column command and leave the cursor where it is.
+     *
+     * @param chip
+     *         The chip index
+     * @param column
+     *         The column address, in display RAM columns
+     */
+    private void setColumn(int chip, int column) {
+        columns[chip] = moveCursor(chip, chips[chip].getPageIndex(), column - getColumnOffset()) ? -1 : column;
+    }
+
+    /**
+     * Moves the cursor of a chip, positions outside of the display are ignored
+     *
+     * @param chip
+     *         The chip index
+     * @param page
+     *         The page
+     * @param column
+     *         The column, relative to the first column of the chip
+     *
+     * @return True if the cursor was moved
+     */
+    private boolean moveCursor(int chip, int page, int column) {
+        if (page >= getPageCount() || column < 0 || column >= chipWidth)
+            return false;
+        chips[chip].setCursor(page, chipStart[chip] + column);
+        return true;
+    }
+
+    private int getPageCount() {
+        return getBuffer().getHeight() / 8;
+    }
+
+    /**
+     * Assigns a part of the display buffer to each chip. The first chip uses the buffer layout of the emulator, the
+     * others get a layout of their own on the same buffer.
+     */
+    private void initializeChips() {
+        VerticalBufferLayout layout = (VerticalBufferLayout) getBufferLayout();
+        PixelBuffer buffer = getBuffer();
+        if (layout == null || buffer == null) {
+            chips = new VerticalBufferLayout[0];
+            return;
+        }
+        if (chipCount == 1) {
+            chipWidth = buffer.getWidth();
+            chipStart = new int[] {0};
+            layout.setAddressingMode(addressingMode);
+            chips = new VerticalBufferLayout[] {layout};
+            return;
+        }
+        chipWidth = ramColumns;
+        chipStart = new int[chipCount];
+        chips = new VerticalBufferLayout[chipCount];
+        for (int i = 0; i < chipCount; i++) {
+            chipStart[i] = i * chipWidth;
+            //chips past the width of the display are not visible
+            if (chipStart[i] >= buffer.getWidth())
+                continue;
+            VerticalBufferLayout chip = layout;
+            if (i > 0) {
+                chip = new VerticalBufferLayout();
+                chip.setBuffer(buffer);
+                chip.initialize();
+            }
+            chip.setColumnRange(chipStart[i], Math.min(buffer.getWidth(), chipStart[i] + chipWidth) - 1);
+            chip.setAddressingMode(addressingMode);
+            chips[i] = chip;
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (VerticalBufferLayout chip : chips) {
+            if (chip != null)
+                chip.flush();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        argumentCount = 0;
+        argumentIndex = 0;
+        command = null;
+        selectedChips = (1 << chipCount) - 1;
+        Arrays.fill(columns, -1);
+        initializeChips();
+    }
+}
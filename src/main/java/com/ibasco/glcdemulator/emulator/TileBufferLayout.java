@@ -0,0 +1,195 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: TileBufferLayout.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffer layout for tile addressed updates (e.g. u8g2's updateDisplayArea). Instead of streaming complete frames,
+ * clients only send the tiles which have changed. Each update is a record of the form:
+ *
+ * <pre>
+ * [tile x] [tile y] [count] [count * 8 bytes of tile data]
+ * </pre>
+ *
+ * <p>A tile is an 8x8 block of pixels made up of 8 vertical columns, one byte per column with the least significant
+ * bit on top (the same format u8g2 uses for its tile buffer). The tiles of a record are written from left to right,
+ * starting at the given tile position. A record with a count of zero marks the end of an update and publishes the
+ * frame. In incremental mode, every record is published as soon as it has been written.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class TileBufferLayout extends BufferLayout {
+
+    private static final Logger log = LoggerFactory.getLogger(TileBufferLayout.class);
+
+    private static final int HEADER_SIZE = 3;
+
+    private static final int TILE_SIZE = 8;
+
+    private final byte[] header = new byte[HEADER_SIZE];
+
+    private int headerLength;
+
+    private int tileX;
+
+    private int tileY;
+
+    private int tileCount;
+
+    //columns of the current tile collected so far, least significant byte first
+    private long columns;
+
+    private int columnLength;
+
+    @Override
+    public void processByte(byte data) {
+        if (headerLength < HEADER_SIZE) {
+            header[headerLength++] = data;
+            if (headerLength == HEADER_SIZE)
+                beginRecord();
+            return;
+        }
+        columns |= (data & 0xFFL) << (columnLength << 3);
+        if (++columnLength == TILE_SIZE) {
+            writeTile(tileX++, tileY, columns);
+            columns = 0;
+            columnLength = 0;
+            if (--tileCount == 0)
+                endRecord();
+        }
+    }
+
+    @Override
+    public void processBuffer(byte[] data, int offset, int length) {
+        int end = offset + length;
+        while (offset < end) {
+            //whole tiles are read straight from the source array
+            if (headerLength == HEADER_SIZE && columnLength == 0 && offset + TILE_SIZE <= end) {
+                int count = Math.min(tileCount, (end - offset) / TILE_SIZE);
+                writeTiles(tileX, tileY, count, data, offset);
+                offset += count * TILE_SIZE;
+                tileX += count;
+                tileCount -= count;
+                if (tileCount == 0)
+                    endRecord();
+            } else {
+                processByte(data[offset++]);
+            }
+        }
+    }
+
+    /**
+     * Writes a row of tiles to the display buffer and publishes it in incremental mode. Tiles falling outside the
+     * display are clipped.
+     *
+     * @param tileX
+     *         The tile column of the first tile
+     * @param tileY
+     *         The tile row (page)
+     * @param count
+     *         The number of tiles to write
+     * @param data
+     *         The tile data, 8 bytes per tile
+     * @param offset
+     *         The offset of the first tile within the data array
+     */
+    public void updateTiles(int tileX, int tileY, int count, byte[] data, int offset) {
+        if (count < 0 || offset < 0 || offset + (count * TILE_SIZE) > data.length)
+            throw new IllegalArgumentException(String.format("Not enough tile data (count = %d, offset = %d, length = %d)", count, offset, data.length));
+        writeTiles(tileX, tileY, count, data, offset);
+        if (isIncremental())
+            publish();
+    }
+
+    /**
+     * @return True if the tile data of a record is still expected
+     */
+    public boolean isPending() {
+        return headerLength > 0;
+    }
+
+    /**
+     * Tile updates carry their own frame boundaries, so frames are always published by this layout
+     */
+    @Override
+    public boolean isSelfPublishing() {
+        return true;
+    }
+
+    @Override
+    public void initialize() {
+        log.debug("Initializing tile buffer layout");
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        headerLength = 0;
+        tileCount = 0;
+        columns = 0;
+        columnLength = 0;
+    }
+
+    private void writeTiles(int tileX, int tileY, int count, byte[] data, int offset) {
+        for (int n = 0; n < count; n++, offset += TILE_SIZE) {
+            long block = 0;
+            for (int i = TILE_SIZE - 1; i >= 0; i--)
+                block = (block << 8) | (data[offset + i] & 0xFFL);
+            writeTile(tileX + n, tileY, block);
+        }
+    }
+
+    /**
+     * Writes a single tile, ignoring tiles which fall completely outside of the display
+     */
+    private void writeTile(int tileX, int tileY, long block) {
+        PixelBuffer buffer = getBuffer();
+        int x = tileX << 3;
+        if (x >= buffer.getWidth() || (tileY << 3) >= buffer.getHeight())
+            return;
+        buffer.writeColumns(x, tileY, block);
+    }
+
+    private void beginRecord() {
+        tileX = header[0] & 0xFF;
+        tileY = header[1] & 0xFF;
+        tileCount = header[2] & 0xFF;
+        if (tileCount == 0) {
+            //end of update marker
+            headerLength = 0;
+            publish();
+        }
+    }
+
+    private void endRecord() {
+        headerLength = 0;
+        if (isIncremental())
+            publish();
+    }
+}
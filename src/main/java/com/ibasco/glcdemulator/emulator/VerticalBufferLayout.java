@@ -25,49 +25,206 @@
  */
 package com.ibasco.glcdemulator.emulator;
 
-import com.ibasco.glcdemulator.utils.BitUtils;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Buffer layout of paged display controllers (e.g. SSD1306). The display is divided into pages of 8 rows and each
+ * byte represents a vertical column of 8 pixels of the current page, starting from the least significant bit.
+ * Columns are collected 8 at a time and written straight into the display buffer as a transposed 8x8 block.
+ *
+ * <p>The layout keeps track of the current page and column the same way the controller does. Writes are confined to
+ * a column and page range (the whole display by default) and the cursor advances according to the {@link
+ * AddressingMode}: by default the column advances with every byte and wraps to the start of the next page at the end
+ * of a page. In incremental mode, each page is published as soon as it is complete so slow links update the screen
+ * progressively.</p>
+ *
+ * @author Rafael Ibasco
+ */
 public class VerticalBufferLayout extends BufferLayout {
 
     private static final Logger log = LoggerFactory.getLogger(VerticalBufferLayout.class);
 
-    private int xOffset = 0;
+    /**
+     * How the cursor advances after each byte (see the memory addressing modes of the SSD1306)
+     */
+    public enum AddressingMode {
+        /**
+         * The column advances, at the end of the column range the cursor moves to the start of the next page
+         */
+        HORIZONTAL,
+        /**
+         * The page advances, at the end of the page range the cursor moves to the next column
+         */
+        VERTICAL,
+        /**
+         * The column advances and wraps back to the start of the column range on the same page
+         */
+        PAGE
+    }
 
-    private int yOffset = 0;
+    private AddressingMode addressingMode = AddressingMode.HORIZONTAL;
 
     private int pageIndex = 0;
 
     private int pageSize;
 
-    private List<ByteBuffer> pageBufferList = new ArrayList<>();
+    private int columnIndex = 0;
+
+    private int pageWidth;
+
+    private int columnStart;
+
+    private int columnEnd;
+
+    private int pageStart;
+
+    private int pageEnd;
+
+    //columns collected since blockColumn, least significant byte first
+    private long columns;
+
+    private int blockColumn;
+
+    private int blockLength;
 
     @Override
     public void processByte(byte data) {
-        if (pageBufferList.isEmpty())
+        if (pageSize == 0)
             throw new IllegalStateException("Page buffer is currently empty.");
 
-        if (pageIndex > (pageSize - 1))
-            throw new IllegalStateException(String.format("Page index is greater than the maximum page limit (page index = %d, max page index = %d)", pageIndex, pageSize - 1));
+        if (addressingMode == AddressingMode.VERTICAL) {
+            processVertical(data);
+            return;
+        }
+
+        columns |= (data & 0xFFL) << (blockLength << 3);
+        columnIndex++;
+        if (++blockLength == 8 || columnIndex > columnEnd)
+            flushColumns();
+        if (columnIndex > columnEnd)
+            completePage();
+    }
 
-        ByteBuffer pageBuffer = pageBufferList.get(pageIndex).put(data);
+    @Override
+    public void processBuffer(byte[] data, int offset, int length) {
+        if (pageSize == 0)
+            throw new IllegalStateException("Page buffer is currently empty.");
 
-        //Start processing the page buffer here
-        if (!pageBuffer.hasRemaining()) {
-            pageBuffer.flip();
-            pageIndex++;
+        int end = offset + length;
+        while (offset < end) {
+            //whole blocks are read straight from the source array
+            if (blockLength == 0 && addressingMode != AddressingMode.VERTICAL && offset + 8 <= end && columnIndex + 8 <= columnEnd + 1) {
+                long block = 0;
+                for (int n = 7; n >= 0; n--)
+                    block = (block << 8) | (data[offset + n] & 0xFFL);
+                getBuffer().writeColumns(columnIndex, pageIndex, block);
+                offset += 8;
+                columnIndex += 8;
+                blockColumn = columnIndex;
+                if (columnIndex > columnEnd)
+                    completePage();
+            } else {
+                processByte(data[offset++]);
+            }
         }
+    }
+
+    /**
+     * Moves the page/column cursor. Columns collected so far are written to the display buffer first.
+     *
+     * @param page
+     *         The page index
+     * @param column
+     *         The column index
+     */
+    public void setCursor(int page, int column) {
+        if (page < 0 || page >= pageSize || column < 0 || column >= pageWidth)
+            throw new IllegalArgumentException(String.format("Cursor out of bounds (page = %d, column = %d, max page = %d, max column = %d)", page, column, pageSize - 1, pageWidth - 1));
+        flushColumns();
+        pageIndex = page;
+        columnIndex = column;
+        blockColumn = column;
+    }
 
-        //Flush to the display once we have collected the data from all pages
-        if (pageIndex > (pageSize - 1))
-            flush();
+    /**
+     * Restricts writes to a range of columns and moves the cursor to the start column
+     *
+     * @param start
+     *         The first column
+     * @param end
+     *         The last column (inclusive)
+     */
+    public void setColumnRange(int start, int end) {
+        if (start < 0 || end >= pageWidth || start > end)
+            throw new IllegalArgumentException(String.format("Invalid column range (start = %d, end = %d, max column = %d)", start, end, pageWidth - 1));
+        flushColumns();
+        columnStart = start;
+        columnEnd = end;
+        columnIndex = start;
+        blockColumn = start;
+    }
+
+    /**
+     * Restricts writes to a range of pages and moves the cursor to the start page
+     *
+     * @param start
+     *         The first page
+     * @param end
+     *         The last page (inclusive)
+     */
+    public void setPageRange(int start, int end) {
+        if (start < 0 || end >= pageSize || start > end)
+            throw new IllegalArgumentException(String.format("Invalid page range (start = %d, end = %d, max page = %d)", start, end, pageSize - 1));
+        flushColumns();
+        pageStart = start;
+        pageEnd = end;
+        pageIndex = start;
+    }
+
+    /**
+     * Sets how the cursor advances after each byte. Columns collected so far are written to the display buffer first.
+     *
+     * @param addressingMode
+     *         The addressing mode
+     */
+    public void setAddressingMode(AddressingMode addressingMode) {
+        if (addressingMode == null)
+            throw new IllegalArgumentException("Addressing mode cannot be null");
+        flushColumns();
+        this.addressingMode = addressingMode;
+    }
+
+    public AddressingMode getAddressingMode() {
+        return addressingMode;
+    }
+
+    @Override
+    public void flush() {
+        flushColumns();
+    }
+
+    /**
+     * @return The page the next byte is written to
+     */
+    public int getPageIndex() {
+        return pageIndex;
+    }
+
+    /**
+     * @return The column the next byte is written to
+     */
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * Completed pages are published by this layout in incremental mode
+     */
+    @Override
+    public boolean isSelfPublishing() {
+        return isIncremental();
     }
 
     @Override
@@ -78,54 +235,65 @@ public class VerticalBufferLayout extends BufferLayout {
 
     @Override
     public void reset() {
-        //log.debug("Resetting page buffer properties");
-        xOffset = 0;
-        yOffset = 0;
         pageIndex = 0;
+        columnIndex = 0;
+        blockColumn = 0;
+        blockLength = 0;
+        columns = 0;
         pageSize = getBuffer().getHeight() / 8; //must be a multiple of 8
-        pageBufferList = new ArrayList<>(pageSize);
-        for (int i = 0; i < pageSize; i++) {
-            pageBufferList.add(createPageBuffer());
-        }
-        //resetPageBuffers();
-    }
-
-    private void resetPageBuffers() {
-        for (ByteBuffer buffer : pageBufferList)
-            buffer.clear();
+        pageWidth = getBuffer().getWidth();
+        addressingMode = AddressingMode.HORIZONTAL;
+        columnStart = 0;
+        columnEnd = pageWidth - 1;
+        pageStart = 0;
+        pageEnd = pageSize - 1;
     }
 
-    private ByteBuffer createPageBuffer() {
-        return ByteBuffer.allocate(getBuffer().getWidth()).order(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Writes a single column and moves down to the next page, at the end of the page range the cursor moves to the
+     * next column
+     */
+    private void processVertical(byte data) {
+        getBuffer().writeColumn(columnIndex, pageIndex, data);
+        if (++pageIndex > pageEnd) {
+            pageIndex = pageStart;
+            if (++columnIndex > columnEnd) {
+                columnIndex = columnStart;
+                if (isIncremental())
+                    publish();
+            }
+            blockColumn = columnIndex;
+        }
     }
 
-    private void flush() {
-        if (pageBufferList.isEmpty())
+    /**
+     * Writes the columns collected so far to the display buffer
+     */
+    private void flushColumns() {
+        if (blockLength == 0)
             return;
-
         PixelBuffer buffer = getBuffer();
-
-        //log.debug("Flushing buffer (Page Buffer List Size={}, Page Size={}, Page Index={}, Buffer Width={}, Buffer Height={})", pageBufferList.size(), pageSize, pageIndex, buffer.getWidth(), buffer.getHeight());
-
-        for (ByteBuffer pageBuffer : pageBufferList) {
-            //process one row of bits at a time from a segment, starting from the least significant bit
-            for (int pos = 0; pos < 8; pos++) {
-                while (pageBuffer.hasRemaining()) {
-                    byte segment = pageBuffer.get();
-                    int state = BitUtils.readBit(segment, pos);
-                    buffer.write(xOffset++, yOffset, state);
-                }
-                pageBuffer.rewind();
-                xOffset = 0;
-                yOffset++;
-            }
-            xOffset = 0;
-            pageBuffer.clear();
+        if (blockLength == 8) {
+            buffer.writeColumns(blockColumn, pageIndex, columns);
+        } else {
+            for (int n = 0; n < blockLength; n++)
+                buffer.writeColumn(blockColumn + n, pageIndex, (byte) (columns >>> (n << 3)));
         }
+        columns = 0;
+        blockLength = 0;
+        blockColumn = columnIndex;
+    }
 
-        //reset page buffers and index
-        yOffset = 0;
-        pageIndex = 0;
-        resetPageBuffers();
+    /**
+     * Moves the cursor back to the start column, on the next page in horizontal mode. The completed page is published
+     * in incremental mode.
+     */
+    private void completePage() {
+        if (isIncremental())
+            publish();
+        columnIndex = columnStart;
+        blockColumn = columnStart;
+        if (addressingMode == AddressingMode.HORIZONTAL && ++pageIndex > pageEnd)
+            pageIndex = pageStart;
     }
 }
@@ -0,0 +1,65 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: KS0108Emulator.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.ks0108;
+
+import com.ibasco.glcdemulator.annotations.Emulator;
+import com.ibasco.glcdemulator.emulator.PagedCommandTable;
+import static com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect.*;
+import com.ibasco.glcdemulator.emulator.PagedControllerEmulator;
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout.AddressingMode;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBufferType;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
+
+/**
+ * KS0108 Emulator. Each chip drives 64 columns of the display, the chips are selected through the chip select lines
+ * at the start of each transfer.
+ * <p>
+ * The chip select lines are taken from the start transfer events of a virtual driver (see {@link
+ * com.ibasco.glcdemulator.emulator.GlcdEmulatorSession}). The instruction stream received over TCP or serial does not
+ * carry them, so in that case both chips stay selected and each half of the display shows the same content.
+ *
+ * @author Rafael Ibasco
+ */
+@Emulator(
+        controller = GlcdControllerType.KS0108,
+        description = "Emulator for KS0108 controller",
+        bus = {
+                GlcdBusInterface.PARALLEL_6800_KS0108
+        },
+        defaultBus = GlcdBusInterface.PARALLEL_6800_KS0108,
+        bufferLayout = GlcdBufferType.VERTICAL
+)
+public class KS0108Emulator extends PagedControllerEmulator {
+
+    private static final PagedCommandTable COMMANDS = new PagedCommandTable()
+            .command(0x40, 0xC0, COLUMN) //y address
+            .command(0xB8, 0xF8, PAGE); //x address
+
+    public KS0108Emulator() {
+        super(COMMANDS, 64, 2, 0, AddressingMode.PAGE);
+    }
+}
@@ -0,0 +1,73 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: SH1106Emulator.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.sh1106;
+
+import com.ibasco.glcdemulator.annotations.Emulator;
+import com.ibasco.glcdemulator.emulator.PagedCommandTable;
+import static com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect.*;
+import com.ibasco.glcdemulator.emulator.PagedControllerEmulator;
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout.AddressingMode;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBufferType;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
+
+/**
+ * SH1106 Emulator. Page addressing only, the display RAM is 132 columns wide and 128 column displays start at column
+ * 2.
+ *
+ * @author Rafael Ibasco
+ */
+@Emulator(
+        controller = GlcdControllerType.SH1106,
+        description = "Emulator for SH1106 controller",
+        bus = {
+                GlcdBusInterface.SPI_SW_4WIRE,
+                GlcdBusInterface.SPI_HW_4WIRE,
+                GlcdBusInterface.PARALLEL_6800,
+                GlcdBusInterface.PARALLEL_8080
+        },
+        defaultBus = GlcdBusInterface.PARALLEL_8080,
+        bufferLayout = GlcdBufferType.VERTICAL
+)
+public class SH1106Emulator extends PagedControllerEmulator {
+
+    private static final PagedCommandTable COMMANDS = new PagedCommandTable()
+            .command(0x00, 0xF0, COLUMN_LOW)
+            .command(0x10, 0xF0, COLUMN_HIGH)
+            .command(0xB0, 0xF8, PAGE)
+            .command(0x81, 1) //contrast
+            .command(0xA8, 1) //multiplex ratio
+            .command(0xAD, 1) //dc-dc control
+            .command(0xD3, 1) //display offset
+            .command(0xD5, 1) //clock divide ratio
+            .command(0xD9, 1) //pre-charge period
+            .command(0xDA, 1) //com pins configuration
+            .command(0xDB, 1); //vcom deselect level
+
+    public SH1106Emulator() {
+        super(COMMANDS, 132, 1, CENTERED, AddressingMode.PAGE);
+    }
+}
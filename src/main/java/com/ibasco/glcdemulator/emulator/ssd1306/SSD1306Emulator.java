@@ -26,11 +26,23 @@
 package com.ibasco.glcdemulator.emulator.ssd1306;
 
 import com.ibasco.glcdemulator.annotations.Emulator;
-import com.ibasco.glcdemulator.emulator.PagedBufferEmulator;
+import com.ibasco.glcdemulator.emulator.PagedCommandTable;
+import static com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect.*;
+import com.ibasco.glcdemulator.emulator.PagedControllerEmulator;
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout.AddressingMode;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBufferType;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
 
+/**
+ * SSD1306 Emulator. Supports the page, horizontal and vertical addressing modes. The display RAM is 128 columns wide,
+ * narrower displays are assumed to be centered within it (e.g. 64x48 starts at column 32).
+ * <p>
+ * Note: After a reset, the emulator uses horizontal addressing over the whole display (instead of page addressing) so
+ * clients which only stream display data keep working.
+ *
+ * @author Rafael Ibasco
+ */
 @Emulator(
         controller = GlcdControllerType.SSD1306,
         description = "Emulator for SSD1306 controller",
@@ -43,6 +55,30 @@ import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
         defaultBus = GlcdBusInterface.PARALLEL_8080,
         bufferLayout = GlcdBufferType.VERTICAL
 )
-public class SSD1306Emulator extends PagedBufferEmulator {
+public class SSD1306Emulator extends PagedControllerEmulator {
+
+    private static final PagedCommandTable COMMANDS = new PagedCommandTable()
+            .command(0x00, 0xF0, COLUMN_LOW)
+            .command(0x10, 0xF0, COLUMN_HIGH)
+            .command(0xB0, 0xF8, PAGE)
+            .command(0x20, 0xFF, 1, ADDRESSING_MODE)
+            .command(0x21, 0xFF, 2, COLUMN_RANGE)
+            .command(0x22, 0xFF, 2, PAGE_RANGE)
+            .command(0x26, 6) //horizontal scroll setup
+            .command(0x27, 6)
+            .command(0x29, 5) //vertical and horizontal scroll setup
+            .command(0x2A, 5)
+            .command(0x81, 1) //contrast
+            .command(0x8D, 1) //charge pump
+            .command(0xA3, 2) //vertical scroll area
+            .command(0xA8, 1) //multiplex ratio
+            .command(0xD3, 1) //display offset
+            .command(0xD5, 1) //clock divide ratio
+            .command(0xD9, 1) //pre-charge period
+            .command(0xDA, 1) //com pins configuration
+            .command(0xDB, 1); //vcomh deselect level
 
+    public SSD1306Emulator() {
+        super(COMMANDS, 128, 1, CENTERED, AddressingMode.HORIZONTAL);
+    }
 }
@@ -27,7 +27,7 @@ package com.ibasco.glcdemulator.emulator.st7920;
 
 import com.ibasco.glcdemulator.annotations.Emulator;
 import com.ibasco.glcdemulator.emulator.GlcdEmulatorBase;
-import com.ibasco.glcdemulator.emulator.st7920.instructions.DdramSet;
+import com.ibasco.glcdemulator.emulator.GlcdInstructionException;
 import com.ibasco.glcdemulator.exceptions.EmulatorProcessException;
 import com.ibasco.glcdemulator.utils.ByteUtils;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
@@ -39,8 +39,6 @@ import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * ST7920 GLCD Emulator. Current implementation only supports spi/parallel interface (8-bit). Note that 4-bit parallel
  * mode is not supported by U8G2 so this feature is not implemented.
@@ -66,6 +64,11 @@ public class ST7920Emulator extends GlcdEmulatorBase {
     private static final int SER_RS_INSTRUCTION = 0xF8;
 
     private static final int SER_RS_DATA = 0xFA;
+
+    //DDRAM address masks of the vertical (Y) and horizontal (X) address
+    private static final int ADDRESS_Y = 0x3F;
+
+    private static final int ADDRESS_X = 0xF;
     //</editor-fold>
 
     //<editor-fold desc="Emulator Properties">
@@ -84,7 +87,15 @@ public class ST7920Emulator extends GlcdEmulatorBase {
 
     private int xAddress = 0;
 
-    private final AtomicInteger dataCtr = new AtomicInteger(0);
+    /**
+     * 0 = high byte of the next 16-bit word, 1 = low byte
+     */
+    private int dataCounter = 0;
+
+    /**
+     * The address set by the next DDRAM/GDRAM address instruction: 0 = vertical (y), 1 = horizontal (x)
+     */
+    private int addressCounter = 0;
     //</editor-fold>
 
     @Override
@@ -113,6 +124,42 @@ public class ST7920Emulator extends GlcdEmulatorBase {
         }
     }
 
+    @Override
+    public void onData(byte[] data, int offset, int length) {
+        process(1, data, offset, length);
+    }
+
+    @Override
+    public void onCommand(byte[] data, int offset, int length) {
+        process(0, data, offset, length);
+    }
+
+    /**
+     * Process a run of bytes sent with the specified data/command line state
+     *
+     * @param dataCommand
+     *         0 = Command, 1 = Data
+     */
+    private void process(int dataCommand, byte[] data, int offset, int length) {
+        int end = offset + length;
+        switch (getBusInterface()) {
+            case PARALLEL_8080:
+            case PARALLEL_6800: {
+                registerSelect = dataCommand;
+                for (int i = offset; i < end; i++)
+                    processParallel(Byte.toUnsignedInt(data[i]));
+                break;
+            }
+            case SPI_HW_4WIRE_ST7920:
+            case SPI_SW_4WIRE_ST7920: {
+                //the register is selected by the synchronizing bytes in serial mode
+                for (int i = offset; i < end; i++)
+                    processSPI(Byte.toUnsignedInt(data[i]));
+                break;
+            }
+        }
+    }
+
     private void processSPI(int data) {
         //Select register
         if (data == SER_RS_INSTRUCTION || data == SER_RS_DATA) {
@@ -147,47 +194,38 @@ public class ST7920Emulator extends GlcdEmulatorBase {
     }
 
     /**
-     * Process display instruction sets
+     * Process display instruction sets. The instruction is looked up in a pre-computed table and decoded in place, no
+     * instruction objects are created.
      *
      * @param value
      *         The instruction data
      */
     private void processInstruction(int value) {
-        ST7920Instruction instruction = ST7920InstructionFactory.createInstruction(value);
+        ST7920InstructionFlag flag = ST7920InstructionFlag.decode(value);
+        if (flag == null)
+            throw new GlcdInstructionException("No instruction flags match for the specified value : " + Integer.toHexString(value).toUpperCase());
 
-        if (instruction != null) {
-            switch (instruction.getFlag()) {
-                case CGRAM_SET:
-                    break;
-                case DDRAM_SET:
-                    DdramSet ins = (DdramSet) instruction;
-                    if (ins.getAddressType() == DdramSet.ADDRESS_X) {
-                        xAddress = ins.getAddress() & DdramSet.ADDRESS_X;
-                    } else if (ins.getAddressType() == DdramSet.ADDRESS_Y) {
-                        yAddress = ins.getAddress() & DdramSet.ADDRESS_Y;
-                    }
-                    break;
-                case DISPLAY_CLEAR:
-                    //not implemented
-                    break;
-                case ENTRY_MODE_SET:
-                    //not yet implemented
-                    break;
-                case HOME:
-                    //not implemented
-                    break;
-                case DISPLAY_CURSOR_CONTROL:
-                    //not implemented
-                    break;
-                case FUNCTION_SET:
-                    //not implemented
-                    break;
-                case DISPLAY_CONTROL:
-                    //not implemented
-                    break;
-                default:
-                    break;
-            }
+        switch (flag) {
+            case DDRAM_SET:
+                //Note: Max Y = 0x3F, Max X = 0xF. The vertical address is always sent first
+                if (addressCounter == 0) {
+                    yAddress = value & ADDRESS_Y;
+                } else {
+                    xAddress = value & ADDRESS_X;
+                }
+                addressCounter ^= 1;
+                break;
+            case CGRAM_SET:
+            case DISPLAY_CLEAR:
+            case ENTRY_MODE_SET:
+            case HOME:
+            case DISPLAY_CURSOR_CONTROL:
+            case FUNCTION_SET:
+            case DISPLAY_CONTROL:
+                //not implemented
+                break;
+            default:
+                break;
         }
     }
 
@@ -202,11 +240,13 @@ public class ST7920Emulator extends GlcdEmulatorBase {
     private void processData(int data) {
         //Note: For one address, two succeeding bytes are received (16 bits)
         //first byte (high nibble)
-        if (dataCtr.getAndUpdate(this::toggle) == 0) { //dataCtr == 0
+        if (dataCounter == 0) {
+            dataCounter = 1;
             _data = (short) ((data & 0xff) << 8);
         }
         //second byte (low nibble)
         else {
+            dataCounter = 0;
             _data |= data & 0xff;
             try {
                 //Process 2 bytes of data at a time then iterate through each bit starting
@@ -227,29 +267,25 @@ public class ST7920Emulator extends GlcdEmulatorBase {
      *         A 16-bit value to be flushed to the display buffer
      */
     private void flush(short data) {
-        int width = getBuffer().getWidth();
-        int mask = width - 1;
-        int offset = getBuffer().getHeight() / 2; //this would be our overflow offset
-
         PixelBuffer buffer = getBuffer();
+        int width = buffer.getWidth();
+        int mask = width - 1;
+        int offset = buffer.getHeight() / 2; //this would be our overflow offset
 
-        for (int pos = 15; pos >= 0; pos--) {
-            int x = (15 - pos) + (xAddress * 16); //calculate x-pixel coordinate
-            int y = yAddress; //y-pixel coordinate (as is)
-            boolean value = (data & (1 << pos)) != 0; //read nth bit
+        int x = xAddress * 16; //calculate x-pixel coordinate of the most significant bit
+        int y = yAddress; //y-pixel coordinate (as is)
 
-            //re-adjust x and y coordinates when overflow occurs
-            if (x >= width) {
-                x &= mask; //apply mask to limit range between 0 and (width -1)
-                y += offset; //increment y with the overflow offset
-                if (y > (buffer.getHeight() - 1)) {
-                    throw new IllegalStateException(String.format("Y-coordinate greater than the maximum display height (actual: %d, max: %d)", y, getBuffer().getHeight() - 1));
-                }
+        //re-adjust x and y coordinates when overflow occurs
+        if (x >= width) {
+            x &= mask; //apply mask to limit range between 0 and (width -1)
+            y += offset; //increment y with the overflow offset
+            if (y > (buffer.getHeight() - 1)) {
+                throw new IllegalStateException(String.format("Y-coordinate greater than the maximum display height (actual: %d, max: %d)", y, buffer.getHeight() - 1));
             }
-
-            //Write to pixel buffer
-            buffer.write(x, y, value);
         }
+
+        //The most significant bit is the left-most pixel, reverse so it becomes the first bit of the span
+        buffer.writeSpan(x, y, Integer.reverse(data & 0xffff) >>> 16, 16);
     }
 
     /**
@@ -257,16 +293,14 @@ public class ST7920Emulator extends GlcdEmulatorBase {
      */
     @Override
     public void reset() {
-        dataCtr.set(0);
+        dataCounter = 0;
+        addressCounter = 0;
         registerSelect = 0;
         registerCounter = 0;
-        registerData = new int[2];
+        registerData[0] = 0;
+        registerData[1] = 0;
         _data = 0;
         xAddress = 0;
         yAddress = 0;
     }
-
-    private int toggle(int prev) {
-        return ++prev & 0x1;
-    }
 }
@@ -39,6 +39,19 @@ public enum ST7920InstructionFlag implements GlcdInstructionFlag {
     CGRAM_SET(0x40, "Set CGRAM address to address counter"),
     DDRAM_SET(0x80, "Set DDRAM address to address counter (AC)");
 
+    //the flag of every instruction byte, indexed by the unsigned value (the highest bit set selects the instruction)
+    private static final ST7920InstructionFlag[] DECODE_TABLE = new ST7920InstructionFlag[256];
+
+    static {
+        for (int value = 1; value < DECODE_TABLE.length; value++) {
+            int code = Integer.highestOneBit(value);
+            for (ST7920InstructionFlag flag : values()) {
+                if (flag.code == code)
+                    DECODE_TABLE[value] = flag;
+            }
+        }
+    }
+
     private int code;
 
     private String description;
@@ -62,4 +75,16 @@ public enum ST7920InstructionFlag implements GlcdInstructionFlag {
     public int getCode() {
         return code;
     }
+
+    /**
+     * Looks up the instruction flag of an instruction byte without scanning or allocating
+     *
+     * @param value
+     *         The instruction byte (only the lower 8 bits are used)
+     *
+     * @return The matching flag, null if the value does not represent an instruction (0x00)
+     */
+    public static ST7920InstructionFlag decode(int value) {
+        return DECODE_TABLE[value & 0xFF];
+    }
 }
@@ -0,0 +1,66 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: UC1701Emulator.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.uc1701;
+
+import com.ibasco.glcdemulator.annotations.Emulator;
+import com.ibasco.glcdemulator.emulator.PagedCommandTable;
+import static com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect.*;
+import com.ibasco.glcdemulator.emulator.PagedControllerEmulator;
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout.AddressingMode;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBufferType;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdControllerType;
+
+/**
+ * UC1701 Emulator. Page addressing only, the display RAM is 132 columns wide and displays start at column 0 (use
+ * {@link #setColumnOffset(int)} for modules wired with a reversed segment direction).
+ *
+ * @author Rafael Ibasco
+ */
+@Emulator(
+        controller = GlcdControllerType.UC1701,
+        description = "Emulator for UC1701 controller",
+        bus = {
+                GlcdBusInterface.SPI_SW_4WIRE,
+                GlcdBusInterface.SPI_HW_4WIRE
+        },
+        defaultBus = GlcdBusInterface.SPI_HW_4WIRE,
+        bufferLayout = GlcdBufferType.VERTICAL
+)
+public class UC1701Emulator extends PagedControllerEmulator {
+
+    private static final PagedCommandTable COMMANDS = new PagedCommandTable()
+            .command(0x00, 0xF0, COLUMN_LOW)
+            .command(0x10, 0xF0, COLUMN_HIGH)
+            .command(0xB0, 0xF0, PAGE)
+            .command(0x81, 1) //electronic volume
+            .command(0xF8, 1) //booster ratio
+            .command(0xFA, 1); //advanced program control
+
+    public UC1701Emulator() {
+        super(COMMANDS, 132, 1, 0, AddressingMode.PAGE);
+    }
+}
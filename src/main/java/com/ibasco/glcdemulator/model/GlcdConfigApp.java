@@ -99,12 +99,71 @@ public class GlcdConfigApp extends GlcdConfig {
     private BooleanProperty skipResizeWarning = new SimpleBooleanProperty(false);
 
     private ObjectProperty<ServiceMode> serviceMode = new SimpleObjectProperty<>(ServiceMode.SIMULATED);
+
+    private BooleanProperty incrementalFlush = new SimpleBooleanProperty(false);
+
+    private BooleanProperty tileUpdates = new SimpleBooleanProperty(false);
+
+    private IntegerProperty screenFpsLimit = new SimpleIntegerProperty(0);
+
+    private IntegerProperty recordFrameInterval = new SimpleIntegerProperty(1);
     //</editor-fold>
 
     public GlcdConfigApp() {
     }
 
     //<editor-fold desc="Getter/Setters">
+    /**
+     * @return The maximum number of frames per second drawn by the screen, 0 if unlimited
+     */
+    public int getScreenFpsLimit() {
+        return screenFpsLimit.get();
+    }
+
+    public IntegerProperty screenFpsLimitProperty() {
+        return screenFpsLimit;
+    }
+
+    public void setScreenFpsLimit(int screenFpsLimit) {
+        this.screenFpsLimit.set(screenFpsLimit);
+    }
+
+    public int getRecordFrameInterval() {
+        return recordFrameInterval.get();
+    }
+
+    public IntegerProperty recordFrameIntervalProperty() {
+        return recordFrameInterval;
+    }
+
+    public void setRecordFrameInterval(int recordFrameInterval) {
+        this.recordFrameInterval.set(recordFrameInterval);
+    }
+
+    public boolean isTileUpdates() {
+        return tileUpdates.get();
+    }
+
+    public BooleanProperty tileUpdatesProperty() {
+        return tileUpdates;
+    }
+
+    public void setTileUpdates(boolean tileUpdates) {
+        this.tileUpdates.set(tileUpdates);
+    }
+
+    public boolean isIncrementalFlush() {
+        return incrementalFlush.get();
+    }
+
+    public BooleanProperty incrementalFlushProperty() {
+        return incrementalFlush;
+    }
+
+    public void setIncrementalFlush(boolean incrementalFlush) {
+        this.incrementalFlush.set(incrementalFlush);
+    }
+
     public ServiceMode getServiceMode() {
         return serviceMode.get();
     }
@@ -198,6 +198,20 @@ abstract public class ByteListenerTask extends Task<Void> {
         byteProcessor.get().process(data);
     }
 
+    /**
+     * Accept a run of bytes from a data stream and pass them to the internal emulator instance for further processing.
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    protected void processBytes(byte[] data, int offset, int length) {
+        byteProcessor.get().process(data, offset, length);
+    }
+
     protected void reset() {
         if (byteProcessor.get() != null)
             byteProcessor.get().reset();
@@ -126,6 +126,7 @@ public class SerialByteListenerTask extends ByteListenerTask {
         int size = calculateBufferSize();
         log.info("Calculated buffer size: " + size);
         boolean acknowledged = false;
+        byte[] chunk = new byte[size];
 
         try (BufferedInputStream bis = new BufferedInputStream(serialPort.getInputStream(), size)) {
             log.info("Using serial port: {}", serialPort);
@@ -133,8 +134,8 @@ public class SerialByteListenerTask extends ByteListenerTask {
             setConnected(true);
             while (!isCancelled()) {
                 if (bis.available() > 0) {
-                    byte data = (byte) bis.read();
                     if (!acknowledged) {
+                        byte data = (byte) bis.read();
                         log.debug("Not acknowledged...Waiting: {}", ByteUtils.toHexString(data));
                         if (data == MSG_REQ) {
                             log.info("Received request from client. Sending ACK");
@@ -151,7 +152,10 @@ public class SerialByteListenerTask extends ByteListenerTask {
                         }
                         continue;
                     }
-                    processByte(data);
+                    //hand over everything received so far in one go
+                    int count = bis.read(chunk, 0, Math.min(bis.available(), chunk.length));
+                    if (count > 0)
+                        processBytes(chunk, 0, count);
                 }
             }
         }
@@ -85,7 +85,7 @@ public class TcpByteListenerTask extends ByteListenerTask {
     protected void process() throws Exception {
         log.info("Starting TCP listen task");
         try {
-            ByteBuffer recv = ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer recv = ByteBuffer.allocate(calculateBufferSize()).order(ByteOrder.LITTLE_ENDIAN);
 
             reset();
             initSocketServer();
@@ -119,9 +119,7 @@ public class TcpByteListenerTask extends ByteListenerTask {
                                 }
 
                                 recv.flip();
-                                while (recv.hasRemaining()) {
-                                    processByte(recv.get());
-                                }
+                                processBytes(recv.array(), recv.arrayOffset() + recv.position(), recv.remaining());
                             } catch (IOException e) {
                                 log.warn(e.getMessage());
                                 key.cancel();
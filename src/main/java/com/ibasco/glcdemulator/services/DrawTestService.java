@@ -176,6 +176,7 @@ public class DrawTestService extends Service<Void> {
         byte[] buffer = driver.getBuffer();
         for (byte d : buffer)
             bufferLayout.processByte(d);
+        getBuffer().publish();
     }
 
     public GlcdDisplay getDisplay() {
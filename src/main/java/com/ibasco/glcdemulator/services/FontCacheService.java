@@ -29,7 +29,6 @@ import com.google.gson.reflect.TypeToken;
 import com.ibasco.glcdemulator.Context;
 import com.ibasco.glcdemulator.constants.Common;
 import static com.ibasco.glcdemulator.constants.Common.CACHE_DIR_PATH;
-import com.ibasco.glcdemulator.controls.GlcdScreen;
 import com.ibasco.glcdemulator.enums.PixelShape;
 import com.ibasco.glcdemulator.model.FontCacheEntry;
 import com.ibasco.glcdemulator.utils.*;
@@ -41,13 +40,12 @@ import javafx.beans.property.StringProperty;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.TextAlignment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
@@ -64,11 +62,19 @@ public class FontCacheService extends Service<ObservableList<FontCacheEntry>> {
 
     private static final Logger log = LoggerFactory.getLogger(FontCacheService.class);
 
+    private static final Color PREVIEW_BACKLIGHT_COLOR = Color.web("#212121"); //79ff4d
+
+    private static final Color PREVIEW_INACTIVE_COLOR = Color.color(Color.LIGHTGRAY.getRed(), Color.LIGHTGRAY.getGreen(), Color.LIGHTGRAY.getBlue(), 6.59f / 100.0f);
+
     private StringProperty cacheDirPath = new SimpleStringProperty(Common.FONT_CACHE_DIR_PATH);
 
     private StringProperty cacheFilePath = new SimpleStringProperty(Common.FONT_CACHE_FILE_PATH);
 
-    private GlcdScreen fontScreen;
+    private PixelBuffer fontBuffer;
+
+    private FrameImageWriter imageWriter;
+
+    private IndexedPngEncoder pngEncoder;
 
     private FontRenderer renderer;
 
@@ -76,8 +82,11 @@ public class FontCacheService extends Service<ObservableList<FontCacheEntry>> {
 
     public FontCacheService() {
         setExecutor(Context.getTaskExecutor());
-        renderer = FontRenderer.getInstance();
-        fontScreen = createFontDisplay();
+        //use a dedicated renderer so caching does not block the font browser
+        renderer = new FontRenderer();
+        fontBuffer = new PixelBuffer(renderer.getDriver().getWidth(), renderer.getDriver().getHeight());
+        imageWriter = createImageWriter();
+        pngEncoder = createPngEncoder();
     }
 
     public ObservableList<FontCacheEntry> getEntries() {
@@ -122,18 +131,17 @@ public class FontCacheService extends Service<ObservableList<FontCacheEntry>> {
                         FontRenderer.FontInfo info = renderer.getFontInfo(font);
                         File cachedImagePath = createImageFile(font);
 
-                        //Render a font with the provided text
-                        renderer.renderFont(fontScreen, font, createPreviewText(font));
-
-                        double width = fontScreen.getWidth(), height = fontScreen.getHeight();
+                        //Render a font with the provided text (rasterized on this thread, the FX thread is not involved)
+                        renderer.renderFont(fontBuffer, font, createPreviewText(font));
 
                         //Check if anything has been drawn to the display
-                        if (fontScreen.getBuffer().isEmpty())
-                            drawNotAvailableScreen(width, height);
-                        else
-                            fontScreen.refresh();
-
-                        NodeUtil.saveNodeImageToFile(fontScreen, cachedImagePath, width, height);
+                        if (fontBuffer.isEmpty()) {
+                            BufferedImage image = imageWriter.render(fontBuffer);
+                            drawNotAvailableScreen(image);
+                            FrameImageWriter.write(image, cachedImagePath);
+                        } else {
+                            pngEncoder.write(fontBuffer, cachedImagePath);
+                        }
                         FontCacheEntry entry = new FontCacheEntry(info.getAscent(), info.getDescent(), info.getMaxCharWidth(), info.getMaxCharHeight(), font, cachedImagePath);
                         entries.add(entry);
                     } catch (Exception e) {
@@ -179,31 +187,47 @@ public class FontCacheService extends Service<ObservableList<FontCacheEntry>> {
         super.failed();
     }
 
-    private GlcdScreen createFontDisplay() {
-        GlcdScreen display = new GlcdScreen(false);
-        display.setBuffer(new PixelBuffer(renderer.getDriver().getWidth(), renderer.getDriver().getHeight()));
-        display.setGradientBacklight(false);
-        display.setBacklightColor(Color.web("#212121")); //79ff4d
-        display.setActivePixelColor(Color.LIGHTGRAY);
-        display.setInactivePixelColor(Color.LIGHTGRAY);
-        display.setDropShadowVisible(false);
-        display.setContrast(6.59f);
-        display.setPixelSize(1.81f);
-        display.setSpacing(0.0);
-        display.setMargin(5.97f);
-        display.setPixelShape(PixelShape.RECTANGLE);
-        return display;
+    private FrameImageWriter createImageWriter() {
+        FrameImageWriter writer = new FrameImageWriter();
+        PixelRasterizer rasterizer = writer.getRasterizer();
+        int backlight = FrameImageWriter.toArgb(PREVIEW_BACKLIGHT_COLOR);
+        rasterizer.setBacklightColor(backlight, backlight);
+        rasterizer.setActiveColor(FrameImageWriter.toArgb(Color.LIGHTGRAY));
+        rasterizer.setInactiveColor(FrameImageWriter.toArgb(PREVIEW_INACTIVE_COLOR));
+        rasterizer.setPixelSize(1.81f);
+        rasterizer.setSpacing(0.0);
+        rasterizer.setMargin(5.97f);
+        rasterizer.setPixelShape(PixelShape.RECTANGLE);
+        return writer;
     }
 
-    private void drawNotAvailableScreen(double width, double height) {
-        GraphicsContext gc = fontScreen.getGraphicsContext2D();
-        gc.clearRect(0, 0, width, height);
-        gc.setFont(new Font("Verdana", 20));
-        gc.setTextAlign(TextAlignment.CENTER);
-        gc.setFill(fontScreen.getBacklightColor().darker());
-        gc.fillRect(0, 0, width, height);
-        gc.setFill(fontScreen.getBacklightColor().invert());
-        gc.fillText("Preview Not Available", 120.0, 60.0);
+    /**
+     * Previews are encoded straight from the font buffer as 2-bit indexed images, with each display pixel drawn as a 2x2
+     * block
+     */
+    private IndexedPngEncoder createPngEncoder() {
+        IndexedPngEncoder encoder = new IndexedPngEncoder();
+        encoder.setBackgroundColor(FrameImageWriter.toArgb(PREVIEW_BACKLIGHT_COLOR));
+        encoder.setActiveColor(FrameImageWriter.toArgb(Color.LIGHTGRAY));
+        encoder.setInactiveColor(FrameImageWriter.toArgb(PREVIEW_INACTIVE_COLOR));
+        encoder.setScale(2);
+        encoder.setMargin(6);
+        return encoder;
+    }
+
+    private void drawNotAvailableScreen(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(new java.awt.Color(FrameImageWriter.toArgb(PREVIEW_BACKLIGHT_COLOR.darker()), true));
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setFont(new Font("Verdana", Font.PLAIN, 20));
+            g.setColor(new java.awt.Color(FrameImageWriter.toArgb(PREVIEW_BACKLIGHT_COLOR.invert()), true));
+            String text = "Preview Not Available";
+            g.drawString(text, 120 - (g.getFontMetrics().stringWidth(text) / 2), 60);
+        } finally {
+            g.dispose();
+        }
     }
 
     private String createPreviewText(GlcdFont font) {
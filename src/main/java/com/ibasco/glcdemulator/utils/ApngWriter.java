@@ -0,0 +1,162 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: ApngWriter.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes frames as an animated PNG (APNG) file, using the palette and geometry of an {@link IndexedPngEncoder}. Frames
+ * are appended as they come in, the total number of frames is filled in when the writer is closed. Viewers which do not
+ * support APNG show the first frame.
+ *
+ * <p>Instances of this class are not thread-safe.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class ApngWriter implements Closeable {
+
+    //signature (8) + IHDR chunk (4 + 4 + 13 + 4)
+    private static final int ANIMATION_CONTROL_OFFSET = 33;
+
+    //APNG delays are stored as a 16-bit fraction, in milliseconds here
+    private static final int MAX_DELAY = 0xFFFF;
+
+    private final IndexedPngEncoder encoder;
+
+    private final FileChannel channel;
+
+    private final OutputStream out;
+
+    private final int displayWidth;
+
+    private final int displayHeight;
+
+    private int frames;
+
+    private int sequence;
+
+    private boolean closed;
+
+    /**
+     * Creates the file and writes the header of the image
+     *
+     * @param file
+     *         The destination file
+     * @param encoder
+     *         The encoder providing the palette and geometry, must not be modified while writing
+     * @param displayWidth
+     *         The width of the frames
+     * @param displayHeight
+     *         The height of the frames
+     *
+     * @throws IOException
+     *         If the file could not be created
+     */
+    public ApngWriter(File file, IndexedPngEncoder encoder, int displayWidth, int displayHeight) throws IOException {
+        this.encoder = encoder;
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel));
+        out.write(IndexedPngEncoder.SIGNATURE);
+        encoder.writeHeader(out, displayWidth, displayHeight);
+        writeAnimationControl(out, 0);
+        encoder.writePalette(out);
+    }
+
+    /**
+     * Appends a frame
+     *
+     * @param frame
+     *         The frame, must have the dimensions passed to the constructor
+     * @param delay
+     *         The time the frame is shown (in milliseconds, at most 65535)
+     *
+     * @throws IOException
+     *         If the frame could not be written
+     */
+    public void addFrame(PixelBuffer frame, int delay) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Writer has been closed");
+        if (frame.getWidth() != displayWidth || frame.getHeight() != displayHeight)
+            throw new IllegalArgumentException(String.format("Frame dimensions do not match (Expected: %dx%d, Actual: %dx%d)", displayWidth, displayHeight, frame.getWidth(), frame.getHeight()));
+        DataOutputStream control = encoder.beginChunk();
+        control.writeInt(sequence++);
+        control.writeInt(encoder.computeSize(displayWidth));
+        control.writeInt(encoder.computeSize(displayHeight));
+        control.writeInt(0); //x offset
+        control.writeInt(0); //y offset
+        control.writeShort(Math.max(0, Math.min(MAX_DELAY, delay)));
+        control.writeShort(1000);
+        control.writeByte(0); //dispose: none
+        control.writeByte(0); //blend: source
+        encoder.writeChunk(out, "fcTL");
+        //the first frame doubles as the default image
+        if (frames == 0)
+            encoder.writeImageData(out, frame, "IDAT", -1);
+        else
+            encoder.writeImageData(out, frame, "fdAT", sequence++);
+        frames++;
+    }
+
+    /**
+     * @return The number of frames written so far
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Completes the file and fills in the number of frames
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            encoder.beginChunk();
+            encoder.writeChunk(out, "IEND");
+            out.flush();
+            ByteArrayOutputStream control = new ByteArrayOutputStream(20);
+            writeAnimationControl(control, frames);
+            channel.write(ByteBuffer.wrap(control.toByteArray()), ANIMATION_CONTROL_OFFSET);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeAnimationControl(OutputStream out, int frames) throws IOException {
+        DataOutputStream control = encoder.beginChunk();
+        control.writeInt(frames);
+        control.writeInt(0); //loop forever
+        encoder.writeChunk(out, "acTL");
+    }
+}
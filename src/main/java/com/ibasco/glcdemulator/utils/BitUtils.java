@@ -87,6 +87,25 @@ public class BitUtils {
         return data;
     }
 
+    /**
+     * Transposes an 8x8 bit matrix packed into a long, where byte {@code r} holds row {@code r} and bit {@code c} of
+     * a byte is column {@code c}. Bit {@code (8 * r) + c} of the input ends up at bit {@code (8 * c) + r} of the
+     * result.
+     *
+     * @param matrix
+     *         The packed 8x8 bit matrix
+     *
+     * @return The transposed matrix
+     */
+    public static long transpose8x8(long matrix) {
+        long t = (matrix ^ (matrix >>> 7)) & 0x00AA00AA00AA00AAL;
+        matrix = matrix ^ t ^ (t << 7);
+        t = (matrix ^ (matrix >>> 14)) & 0x0000CCCC0000CCCCL;
+        matrix = matrix ^ t ^ (t << 14);
+        t = (matrix ^ (matrix >>> 28)) & 0x00000000F0F0F0F0L;
+        return matrix ^ t ^ (t << 28);
+    }
+
     /**
      * Converts short value to binary string
      *
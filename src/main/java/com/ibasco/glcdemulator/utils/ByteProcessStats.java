@@ -30,6 +30,7 @@ import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ByteProcessStats {
     private final Counter fpsCounter = new Counter();
@@ -40,6 +41,11 @@ public class ByteProcessStats {
 
     private final AtomicInteger bytesPerFrame = new AtomicInteger();
 
+    //frames identical to the previous frame, which were not published
+    private final Counter duplicateFrameCounter = new Counter();
+
+    private final AtomicLong duplicateFrames = new AtomicLong();
+
     public AtomicInteger getBytesPerFrame() {
         return bytesPerFrame;
     }
@@ -52,6 +58,36 @@ public class ByteProcessStats {
         return byteCounter;
     }
 
+    public Counter getDuplicateFrameCounter() {
+        return duplicateFrameCounter;
+    }
+
+    /**
+     * @return The total number of duplicate frames skipped since the last reset
+     */
+    public long getDuplicateFrames() {
+        return duplicateFrames.get();
+    }
+
+    /**
+     * Records a completed frame which was identical to the previous one
+     */
+    public void countDuplicateFrame() {
+        duplicateFrames.incrementAndGet();
+        duplicateFrameCounter.count();
+    }
+
+    /**
+     * Records a number of completed frames which were identical to the previous one
+     *
+     * @param count
+     *         The number of duplicate frames
+     */
+    public void countDuplicateFrames(int count) {
+        duplicateFrames.addAndGet(count);
+        duplicateFrameCounter.count(count);
+    }
+
     public int getFrameSize() {
         return frameSize.get();
     }
@@ -68,6 +104,10 @@ public class ByteProcessStats {
         return byteCounter.lastCountProperty();
     }
 
+    public ReadOnlyIntegerProperty duplicateFpsProperty() {
+        return duplicateFrameCounter.lastCountProperty();
+    }
+
     public IntegerProperty frameSizeProperty() {
         return frameSize;
     }
@@ -75,6 +115,8 @@ public class ByteProcessStats {
     public void reset() {
         fpsCounter.reset();
         byteCounter.reset();
+        duplicateFrameCounter.reset();
+        duplicateFrames.set(0);
         bytesPerFrame.set(0);
     }
 }
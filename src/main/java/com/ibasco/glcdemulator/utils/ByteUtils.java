@@ -26,6 +26,15 @@
 package com.ibasco.glcdemulator.utils;
 
 public class ByteUtils {
+
+    //bit-reversed value of every byte
+    private static final byte[] REVERSE = new byte[256];
+
+    static {
+        for (int i = 0; i < REVERSE.length; i++)
+            REVERSE[i] = (byte) (Integer.reverse(i) >>> 24);
+    }
+
     public static String toHexString(byte... data) {
         return toHexString(false, data);
     }
@@ -57,12 +66,6 @@ public class ByteUtils {
     }
 
     public static byte reverse(byte x) {
-        byte b = 0;
-        for (int i = 0; i < 8; ++i) {
-            b <<= 1;
-            b |= (x & 1);
-            x >>= 1;
-        }
-        return b;
+        return REVERSE[x & 0xFF];
     }
 }
@@ -92,6 +92,10 @@ public class Counter {
         counter.incrementAndGet();
     }
 
+    public void count(int count) {
+        counter.addAndGet(count);
+    }
+
     public void pulse() {
         pulse(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()));
     }
@@ -36,6 +36,11 @@ import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdFont;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Renders text through a virtual driver. Each instance owns its own driver and buffer layout, so independent renderers
+ * (e.g. one per worker) never contend for the same lock. The shared instance ({@link #getInstance()}) is used by the
+ * user interface.
+ */
 public class FontRenderer {
 
     private static final Logger log = LoggerFactory.getLogger(FontRenderer.class);
@@ -46,7 +51,9 @@ public class FontRenderer {
 
     private BufferLayout bufferLayout;
 
-    private GlcdDisplay display = Glcd.SSD1306.D_128x64_NONAME;
+    private static final GlcdDisplay DEFAULT_DISPLAY = Glcd.SSD1306.D_128x64_NONAME;
+
+    private GlcdDisplay display;
 
     public class FontInfo {
         private int ascent;
@@ -82,7 +89,12 @@ public class FontRenderer {
         private static FontRenderer INSTANCE = new FontRenderer();
     }
 
-    private FontRenderer() {
+    public FontRenderer() {
+        this(DEFAULT_DISPLAY);
+    }
+
+    public FontRenderer(GlcdDisplay display) {
+        this.display = display;
         initialize();
     }
 
@@ -106,7 +118,18 @@ public class FontRenderer {
 
     public void renderFont(GlcdScreen screen, GlcdFont font, String text) {
         synchronized (mutext) {
-            bufferLayout.setBuffer(screen.getBuffer());
+            renderFont(screen.getBuffer(), font, text);
+            screen.getBuffer().publish();
+            screen.refresh();
+        }
+    }
+
+    /**
+     * Renders a text with the font into the buffer, without any JavaFX involvement (see {@link FrameImageWriter})
+     */
+    public void renderFont(PixelBuffer buffer, GlcdFont font, String text) {
+        synchronized (mutext) {
+            bufferLayout.setBuffer(buffer);
             bufferLayout.reset();
             driver.clearBuffer();
             driver.setFont(font);
@@ -114,7 +137,6 @@ public class FontRenderer {
             driver.drawString(5, y, text);
             driver.sendBuffer();
             bufferLayout.processBuffer(driver.getBuffer());
-            screen.refresh();
         }
     }
 
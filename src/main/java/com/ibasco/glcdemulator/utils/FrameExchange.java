@@ -0,0 +1,195 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameExchange.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A lock-free triple buffer used to hand over completed frames from a single producer (e.g. the byte processor of
+ * a listener task) to a single consumer (e.g. the screen renderer) with latest-wins semantics.</p>
+ *
+ * <p>The producer copies a completed frame into its private back slot and publishes it with a single atomic swap
+ * against the shared middle slot. The consumer swaps the middle slot with its private front slot only if a newer frame
+ * is available, so the frame it reads is always complete and never modified while it is being read. Frames published
+ * faster than they are consumed are simply replaced.</p>
+ *
+ * <p>Only the rows touched by the dirty regions of a frame are copied. Each slot keeps a bitmap of the rows changed by
+ * the frames published since it was last written, so a slot that has been held by the consumer for several frames
+ * still catches up with every change. The regions of a frame are kept on its slot (see
+ * {@link PixelBuffer#getChangedRegions()}).</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class FrameExchange {
+
+    private static final int INDEX_MASK = 0x3;
+
+    //set on the middle slot index when it holds a frame that has not been consumed yet
+    private static final int FRESH = 0x4;
+
+    private final PixelBuffer[] frames = new PixelBuffer[3];
+
+    //one bit per row for each slot, set for rows that differ from the last published frame. Owned by the producer.
+    private final long[][] pendingRows = new long[3][];
+
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    //owned by the producer
+    private int back = 0;
+
+    //the slot holding the last published frame, owned by the producer. Never the back slot, so it is only ever read.
+    private int last = -1;
+
+    //owned by the consumer
+    private int front = 2;
+
+    /**
+     * Create a new frame exchange for frames of the specified dimensions
+     *
+     * @param width
+     *         The width of the frames (in pixels)
+     * @param height
+     *         The height of the frames (in pixels)
+     */
+    public FrameExchange(int width, int height) {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new PixelBuffer(width, height);
+            pendingRows[i] = allRows(height);
+        }
+    }
+
+    /**
+     * Publishes a copy of the source buffer as the latest completed frame. Must only be called by the producer.
+     *
+     * @param source
+     *         The buffer holding the completed frame
+     * @param regions
+     *         The areas of the source buffer changed since the last published frame (see
+     *         {@link PixelBuffer#drainDirtyRegions()})
+     *
+     * @return The slot holding the published frame. It must not be modified and is only valid until the next call to
+     * this method.
+     */
+    public PixelBuffer publish(PixelBuffer source, List<PixelRegion> regions) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (last < 0) {
+            //the first frame replaces whatever the consumer held before
+            regions = Collections.singletonList(new PixelRegion(0, 0, width, height));
+        }
+        for (long[] rows : pendingRows) {
+            for (PixelRegion region : regions)
+                markRows(rows, region.getY(), Math.min(region.getY() + region.getHeight(), height));
+        }
+        PixelBuffer frame = frames[back];
+        long[] rows = pendingRows[back];
+        if (frame.getWidth() != width || frame.getHeight() != height) {
+            frame.resize(width, height);
+            rows = pendingRows[back] = allRows(height);
+        }
+        copyRows(source, frame, rows);
+        frame.setChangedRegions(regions.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(regions));
+        last = back;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+        return frame;
+    }
+
+    /**
+     * Checks if the source buffer holds the same pixels as the last published frame. Must only be called by the
+     * producer.
+     *
+     * @param source
+     *         The buffer to compare
+     *
+     * @return True if a frame has been published and it is identical to the source buffer
+     */
+    public boolean isPublished(PixelBuffer source) {
+        return last >= 0 && frames[last].contentEquals(source);
+    }
+
+    /**
+     * Returns the most recently published frame. The returned buffer must not be modified and stays valid until the
+     * next call to this method. Must only be called by the consumer.
+     *
+     * @return The latest complete frame
+     */
+    public PixelBuffer acquire() {
+        if ((middle.get() & FRESH) != 0)
+            front = middle.getAndSet(front) & INDEX_MASK;
+        return frames[front];
+    }
+
+    /**
+     * @return True if a frame has been published since the last call to {@link #acquire()}
+     */
+    public boolean hasNewFrame() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Copies the marked rows from the source to the target buffer, consecutive rows at once, and clears the marks
+     */
+    private static void copyRows(PixelBuffer source, PixelBuffer target, long[] rows) {
+        int height = target.getHeight();
+        int y = nextRow(rows, 0, height);
+        while (y < height) {
+            int end = y;
+            while (end < height && ((rows[end >>> 6] >>> end) & 0x1L) != 0)
+                end++;
+            target.writeRows(source, y, end - y);
+            y = nextRow(rows, end, height);
+        }
+        Arrays.fill(rows, 0L);
+    }
+
+    private static int nextRow(long[] rows, int from, int height) {
+        int index = from >>> 6;
+        if (index >= rows.length)
+            return height;
+        long word = rows[index] & (-1L << from);
+        while (word == 0) {
+            if (++index >= rows.length)
+                return height;
+            word = rows[index];
+        }
+        return Math.min((index << 6) + Long.numberOfTrailingZeros(word), height);
+    }
+
+    private static void markRows(long[] rows, int start, int end) {
+        end = Math.min(end, rows.length << 6);
+        for (int y = start; y < end; y++)
+            rows[y >>> 6] |= 1L << y;
+    }
+
+    private static long[] allRows(int height) {
+        long[] rows = new long[(height + 63) >>> 6];
+        markRows(rows, 0, height);
+        return rows;
+    }
+}
@@ -0,0 +1,378 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameHistory.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>A bounded history of published frames used for rewinding and scrubbing through recent display output.</p>
+ *
+ * <p>Each frame is stored as the XOR difference against the previous frame, run-length encoded, in a fixed-size
+ * off-heap ring buffer. Every {@code keyframeInterval} frames (and whenever the history starts over) a full frame is
+ * stored instead so that any retained frame can be rebuilt by decoding at most {@code keyframeInterval} records. When
+ * the ring is full the oldest frames are evicted, so the memory used never exceeds the capacity given on
+ * construction.</p>
+ *
+ * <p>Frames are numbered in the order they are recorded. Recording happens on the writer thread (see
+ * {@link PixelBuffer#addFrameListener(FrameListener)}) while frames may be retrieved from any other thread.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class FrameHistory implements FrameListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameHistory.class);
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+
+    private final ByteBuffer data;
+
+    private final int keyframeInterval;
+
+    //record index, a ring of maxFrames entries starting at head
+    private final int[] offsets;
+
+    private final int[] lengths;
+
+    private final long[] timestamps;
+
+    private final boolean[] keyframes;
+
+    private int head;
+
+    private int count;
+
+    private long oldestFrameNumber;
+
+    private int writePosition;
+
+    private int sinceKeyframe;
+
+    private int width = -1;
+
+    private int height = -1;
+
+    private byte[] previous;
+
+    private byte[] current;
+
+    private byte[] encoded;
+
+    private volatile boolean paused;
+
+    /**
+     * Create a new frame history using the default keyframe interval
+     *
+     * @param capacity
+     *         The maximum number of bytes used to store the encoded frames
+     * @param maxFrames
+     *         The maximum number of frames retained
+     */
+    public FrameHistory(int capacity, int maxFrames) {
+        this(capacity, maxFrames, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Create a new frame history
+     *
+     * @param capacity
+     *         The maximum number of bytes used to store the encoded frames
+     * @param maxFrames
+     *         The maximum number of frames retained
+     * @param keyframeInterval
+     *         The number of frames between two full (non-delta) frames
+     */
+    public FrameHistory(int capacity, int maxFrames, int keyframeInterval) {
+        if (capacity <= 0 || maxFrames <= 0 || keyframeInterval <= 0)
+            throw new IllegalArgumentException(String.format("Invalid frame history settings (capacity=%d, maxFrames=%d, keyframeInterval=%d)", capacity, maxFrames, keyframeInterval));
+        this.data = ByteBuffer.allocateDirect(capacity);
+        this.keyframeInterval = keyframeInterval;
+        this.offsets = new int[maxFrames];
+        this.lengths = new int[maxFrames];
+        this.timestamps = new long[maxFrames];
+        this.keyframes = new boolean[maxFrames];
+    }
+
+    @Override
+    public synchronized void onFrame(PixelBuffer frame) {
+        if (paused)
+            return;
+        if (frame.getWidth() != width || frame.getHeight() != height)
+            reset(frame.getWidth(), frame.getHeight());
+
+        frame.copyTo(ByteBuffer.wrap(current));
+        boolean keyframe = count == 0 || sinceKeyframe >= keyframeInterval;
+        while (true) {
+            int length = encode(keyframe);
+            if (length > data.capacity()) {
+                log.warn("Frame does not fit in the history buffer (size: {}, capacity: {})", length, data.capacity());
+                //the frame is skipped but keeps its number
+                clear();
+                oldestFrameNumber++;
+                break;
+            }
+            int position = (writePosition + length > data.capacity()) ? 0 : writePosition;
+            evict(position, length);
+            //the previous frame is gone, the delta can no longer be decoded
+            if (count == 0 && !keyframe) {
+                keyframe = true;
+                continue;
+            }
+            store(position, length, keyframe);
+            break;
+        }
+
+        byte[] tmp = previous;
+        previous = current;
+        current = tmp;
+    }
+
+    /**
+     * Rebuilds a recorded frame
+     *
+     * @param frameNumber
+     *         The number of the frame, between {@link #getOldestFrameNumber()} and {@link #getLatestFrameNumber()}
+     *
+     * @return A new {@link PixelBuffer} holding the frame or null if the frame is no longer retained
+     */
+    public synchronized PixelBuffer getFrame(long frameNumber) {
+        int index = indexOf(frameNumber);
+        if (index < 0)
+            return null;
+        //decoding starts from the nearest keyframe, the oldest retained frame is always one
+        int start = index;
+        while (!keyframes[slot(start)])
+            start--;
+        byte[] pixels = new byte[previous.length];
+        for (int i = start; i <= index; i++) {
+            int slot = slot(i);
+            decode(offsets[slot], lengths[slot], pixels);
+        }
+        PixelBuffer buffer = new PixelBuffer(width, height);
+        buffer.blit(0, 0, width, height, pixels, 0, width / 8);
+        return buffer;
+    }
+
+    /**
+     * @param frameNumber
+     *         The number of the frame
+     *
+     * @return The time the frame was recorded (milliseconds since epoch) or -1 if the frame is no longer retained
+     */
+    public synchronized long getTimestamp(long frameNumber) {
+        int index = indexOf(frameNumber);
+        return index < 0 ? -1 : timestamps[slot(index)];
+    }
+
+    /**
+     * @return The number of the oldest retained frame
+     */
+    public synchronized long getOldestFrameNumber() {
+        return oldestFrameNumber;
+    }
+
+    /**
+     * @return The number of the most recently recorded frame or {@code getOldestFrameNumber() - 1} if the history is empty
+     */
+    public synchronized long getLatestFrameNumber() {
+        return oldestFrameNumber + count - 1;
+    }
+
+    /**
+     * @return The number of frames retained
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return The number of bytes occupied by the retained frames
+     */
+    public synchronized int getMemoryUsage() {
+        int used = 0;
+        for (int i = 0; i < count; i++)
+            used += lengths[slot(i)];
+        return used;
+    }
+
+    /**
+     * @return The maximum number of bytes used to store the encoded frames
+     */
+    public int getCapacity() {
+        return data.capacity();
+    }
+
+    /**
+     * @return True if recording is paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Pause or resume recording. Frames published while paused are ignored, retained frames are kept.
+     *
+     * @param paused
+     *         True to pause recording
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Removes all recorded frames
+     */
+    public synchronized void clear() {
+        oldestFrameNumber += count;
+        head = 0;
+        count = 0;
+        writePosition = 0;
+        sinceKeyframe = 0;
+    }
+
+    private void reset(int width, int height) {
+        clear();
+        this.width = width;
+        this.height = height;
+        int frameSize = (width / 8) * height;
+        this.previous = new byte[frameSize];
+        this.current = new byte[frameSize];
+        //worst case: a literal run covering the whole frame plus the run headers
+        this.encoded = new byte[frameSize + 16];
+    }
+
+    private void evict(int position, int length) {
+        //drop every record up to the most recent one overlapping the target area (oldest first)
+        int last = -1;
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            if (offsets[slot] < position + length && position < offsets[slot] + lengths[slot])
+                last = i;
+        }
+        if (count == offsets.length)
+            last = Math.max(last, 0);
+        drop(last + 1);
+        //the oldest retained frame must be a keyframe
+        int deltas = 0;
+        while (deltas < count && !keyframes[slot(deltas)])
+            deltas++;
+        drop(deltas);
+    }
+
+    private void drop(int frames) {
+        head = (head + frames) % offsets.length;
+        count -= frames;
+        oldestFrameNumber += frames;
+    }
+
+    private void store(int position, int length, boolean keyframe) {
+        data.position(position);
+        data.put(encoded, 0, length);
+        int slot = slot(count);
+        offsets[slot] = position;
+        lengths[slot] = length;
+        timestamps[slot] = System.currentTimeMillis();
+        keyframes[slot] = keyframe;
+        count++;
+        writePosition = position + length;
+        sinceKeyframe = keyframe ? 1 : sinceKeyframe + 1;
+    }
+
+    /**
+     * Encodes the current frame (XOR the previous frame unless it is a keyframe) as a sequence of
+     * {@code [zero run][literal length][literal bytes]} records with variable length run lengths.
+     *
+     * @return The number of encoded bytes
+     */
+    private int encode(boolean keyframe) {
+        int size = current.length;
+        int out = 0;
+        int i = 0;
+        while (i < size) {
+            int start = i;
+            while (i < size && delta(i, keyframe) == 0)
+                i++;
+            int zeros = i - start;
+            start = i;
+            //single zero bytes are cheaper to keep in the literal than to start a new run
+            while (i < size && (delta(i, keyframe) != 0 || (i + 1 < size && delta(i + 1, keyframe) != 0)))
+                i++;
+            out = putLength(out, zeros);
+            out = putLength(out, i - start);
+            for (int j = start; j < i; j++)
+                encoded[out++] = delta(j, keyframe);
+        }
+        return out;
+    }
+
+    private byte delta(int index, boolean keyframe) {
+        return keyframe ? current[index] : (byte) (current[index] ^ previous[index]);
+    }
+
+    private int putLength(int out, int length) {
+        while (length >= 0x80) {
+            encoded[out++] = (byte) (length | 0x80);
+            length >>>= 7;
+        }
+        encoded[out++] = (byte) length;
+        return out;
+    }
+
+    private void decode(int offset, int length, byte[] pixels) {
+        int end = offset + length;
+        int i = 0;
+        int pos = offset;
+        while (pos < end) {
+            int zeros = 0, shift = 0, b;
+            do {
+                b = data.get(pos++);
+                zeros |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            int literal = 0;
+            shift = 0;
+            do {
+                b = data.get(pos++);
+                literal |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            i += zeros;
+            for (int j = 0; j < literal; j++)
+                pixels[i++] ^= data.get(pos++);
+        }
+    }
+
+    private int indexOf(long frameNumber) {
+        long index = frameNumber - oldestFrameNumber;
+        return (index < 0 || index >= count) ? -1 : (int) index;
+    }
+
+    private int slot(int index) {
+        return (head + index) % offsets.length;
+    }
+}
@@ -0,0 +1,225 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameImageWriter.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import com.ibasco.glcdemulator.model.GlcdEmulatorProfile;
+import javafx.scene.paint.Color;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Renders frames into {@link BufferedImage}s and PNG files without the JavaFX toolkit, so images can be produced on
+ * worker threads and on machines without a display. The frames are rendered by a {@link PixelRasterizer}, which uses
+ * the same pixel geometry and colors as the emulator screen.
+ *
+ * <p>Instances of this class are not thread-safe, use one instance per thread.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class FrameImageWriter {
+
+    private final PixelRasterizer rasterizer;
+
+    private String watermarkText;
+
+    private Font watermarkFont = new Font("Verdana", Font.PLAIN, 14);
+
+    private int watermarkColor = 0x33000000;
+
+    public FrameImageWriter() {
+        this(new PixelRasterizer());
+    }
+
+    public FrameImageWriter(PixelRasterizer rasterizer) {
+        this.rasterizer = rasterizer;
+    }
+
+    /**
+     * Applies the colors and the pixel geometry of a profile
+     *
+     * @param profile
+     *         The profile to read the settings from
+     * @param gradientBacklight
+     *         True if the backlight should fade towards the bottom, like the emulator screen does by default
+     */
+    public void applyProfile(GlcdEmulatorProfile profile, boolean gradientBacklight) {
+        Color backlight = profile.getLcdBacklightColor();
+        rasterizer.setPixelSize(profile.getLcdPixelSize());
+        rasterizer.setSpacing(profile.getLcdSpacing());
+        rasterizer.setMargin(profile.getLcdMargin());
+        rasterizer.setPixelShape(profile.getLcdPixelShape());
+        rasterizer.setActiveColor(toArgb(profile.getLcdActivePixelColor()));
+        rasterizer.setInactiveColor(inactiveColor(profile));
+        rasterizer.setBacklightColor(toArgb(backlight), toArgb(gradientBacklight ? backlight.darker().darker() : backlight));
+    }
+
+    /**
+     * Applies the colors of a profile and its pixel geometry, rounded to whole pixels, to an indexed encoder
+     *
+     * @param encoder
+     *         The encoder to configure
+     * @param profile
+     *         The profile to read the settings from
+     */
+    public static void applyProfile(IndexedPngEncoder encoder, GlcdEmulatorProfile profile) {
+        encoder.setScale(Math.max(1, (int) Math.round(profile.getLcdPixelSize())));
+        encoder.setSpacing((int) Math.round(profile.getLcdSpacing()));
+        encoder.setMargin((int) Math.round(profile.getLcdMargin()));
+        encoder.setBackgroundColor(toArgb(profile.getLcdBacklightColor()));
+        encoder.setActiveColor(toArgb(profile.getLcdActivePixelColor()));
+        encoder.setInactiveColor(inactiveColor(profile));
+    }
+
+    /**
+     * @return The color of the inactive pixels, the contrast determines their opacity
+     */
+    private static int inactiveColor(GlcdEmulatorProfile profile) {
+        Color inactive = profile.getLcdInactivePixelColor();
+        return toArgb(Color.color(inactive.getRed(), inactive.getGreen(), inactive.getBlue(), profile.getLcdContrast() / 100.0f));
+    }
+
+    /**
+     * Renders a frame into a new image
+     *
+     * @param frame
+     *         The frame to render. Must not be modified by another thread while rendering.
+     *
+     * @return An ARGB image of the frame
+     */
+    public BufferedImage render(PixelBuffer frame) {
+        int[] pixels = rasterizer.rasterize(frame);
+        int width = rasterizer.getWidth(), height = rasterizer.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        System.arraycopy(pixels, 0, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, width * height);
+        if (!StringUtils.isBlank(watermarkText))
+            drawWatermark(image);
+        return image;
+    }
+
+    /**
+     * Renders a frame and saves it as a PNG file
+     *
+     * @param frame
+     *         The frame to render. Must not be modified by another thread while rendering.
+     * @param imageFile
+     *         The destination file. The png extension is appended if missing.
+     *
+     * @return The file the image has been written to
+     *
+     * @throws IOException
+     *         If the image could not be written
+     */
+    public File write(PixelBuffer frame, File imageFile) throws IOException {
+        return write(render(frame), imageFile);
+    }
+
+    /**
+     * Saves an image as a PNG file
+     *
+     * @param image
+     *         The image to save
+     * @param imageFile
+     *         The destination file. The png extension is appended if missing.
+     *
+     * @return The file the image has been written to
+     *
+     * @throws IOException
+     *         If the image could not be written
+     */
+    public static File write(BufferedImage image, File imageFile) throws IOException {
+        if (!imageFile.getName().endsWith(".png"))
+            imageFile = new File(imageFile.getAbsolutePath() + ".png");
+        if (!ImageIO.write(image, "png", imageFile))
+            throw new IOException("No PNG image writer available");
+        return imageFile;
+    }
+
+    private void drawWatermark(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(watermarkFont);
+            g.setColor(new java.awt.Color(watermarkColor, true));
+            FontMetrics metrics = g.getFontMetrics();
+            double margin = rasterizer.getMargin();
+            //same placement as the watermark of the emulator screen
+            double x = image.getWidth() - (metrics.stringWidth(watermarkText) + margin);
+            double y = (image.getHeight() - metrics.getHeight()) + (margin / 2.0d);
+            g.drawString(watermarkText, (float) x, (float) y);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Converts a JavaFX color to a packed ARGB value
+     */
+    public static int toArgb(Color color) {
+        return ((int) Math.round(color.getOpacity() * 255) << 24) | ((int) Math.round(color.getRed() * 255) << 16) | ((int) Math.round(color.getGreen() * 255) << 8) | (int) Math.round(color.getBlue() * 255);
+    }
+
+    public PixelRasterizer getRasterizer() {
+        return rasterizer;
+    }
+
+    public String getWatermarkText() {
+        return watermarkText;
+    }
+
+    /**
+     * @param watermarkText
+     *         Text drawn at the bottom right corner of rendered images, null for none
+     */
+    public void setWatermarkText(String watermarkText) {
+        this.watermarkText = watermarkText;
+    }
+
+    public Font getWatermarkFont() {
+        return watermarkFont;
+    }
+
+    public void setWatermarkFont(Font watermarkFont) {
+        this.watermarkFont = watermarkFont;
+    }
+
+    public int getWatermarkColor() {
+        return watermarkColor;
+    }
+
+    /**
+     * @param watermarkColor
+     *         The ARGB color of the watermark text
+     */
+    public void setWatermarkColor(int watermarkColor) {
+        this.watermarkColor = watermarkColor;
+    }
+}
@@ -2,7 +2,7 @@
  * ========================START=================================
  * Organization: Rafael Luis Ibasco
  * Project: GLCD Simulator
- * Filename: ST7920Instruction.java
+ * Filename: FrameListener.java
  * 
  * ---------------------------------------------------------
  * %%
@@ -23,18 +23,21 @@
  * <http://www.gnu.org/licenses/gpl-3.0.html>.
  * =========================END==================================
  */
-package com.ibasco.glcdemulator.emulator.st7920;
-
-import com.ibasco.glcdemulator.emulator.GlcdInstruction;
+package com.ibasco.glcdemulator.utils;
 
 /**
- * Base class for ST7920 instruction
+ * Receives the frames published by a {@link PixelBuffer}
  *
  * @author Rafael Ibasco
  */
-public class ST7920Instruction extends GlcdInstruction<ST7920InstructionFlag> {
-    public ST7920Instruction(ST7920InstructionFlag flag, byte value) {
-        super(flag, value);
-    }
-
+@FunctionalInterface
+public interface FrameListener {
+    /**
+     * Called on the writer thread each time a frame is published. The frame must not be modified and must not be
+     * retained after this method returns.
+     *
+     * @param frame
+     *         The buffer holding the published frame
+     */
+    void onFrame(PixelBuffer frame);
 }
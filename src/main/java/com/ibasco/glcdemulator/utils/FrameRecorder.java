@@ -0,0 +1,213 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameRecorder.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Records published frames into an animated PNG (see {@link ApngWriter}). Every frame, or every n-th frame, is
+ * copied on the writer thread (see {@link PixelBuffer#addFrameListener(FrameListener)}) and handed to a dedicated
+ * encoder thread through a bounded queue. If the encoder falls behind, frames are dropped from the recording instead of
+ * blocking the writer thread, so recording never slows down the emulator or the display.</p>
+ *
+ * <p>Consecutive identical frames are merged into a single frame shown for the combined duration.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class FrameRecorder implements FrameListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameRecorder.class);
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final long POLL_INTERVAL = 100;
+
+    private final File file;
+
+    private final IndexedPngEncoder encoder;
+
+    private final int interval;
+
+    private final BlockingQueue<Capture> queue;
+
+    private final Thread thread;
+
+    private final CompletableFuture<File> result = new CompletableFuture<>();
+
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    private volatile long recordedFrames;
+
+    private long receivedFrames;
+
+    private volatile boolean stopped;
+
+    private volatile long stopTime;
+
+    private static final class Capture {
+
+        private final PixelBuffer frame;
+
+        private final long timestamp;
+
+        private Capture(PixelBuffer frame, long timestamp) {
+            this.frame = frame;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Create a new recorder. Call {@link #start()} before registering it as a frame listener.
+     *
+     * @param file
+     *         The file to write the animation to
+     * @param encoder
+     *         The encoder providing the palette and geometry, must not be modified while recording
+     * @param interval
+     *         Record every n-th frame (1 to record every frame)
+     * @param queueCapacity
+     *         The number of frames which may be waiting for the encoder before frames are dropped
+     */
+    public FrameRecorder(File file, IndexedPngEncoder encoder, int interval, int queueCapacity) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Interval must be at least 1");
+        this.file = file;
+        this.encoder = encoder;
+        this.interval = interval;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::encodeFrames, "frame-recorder");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the encoder thread
+     */
+    public void start() {
+        thread.start();
+    }
+
+    @Override
+    public void onFrame(PixelBuffer frame) {
+        if (stopped || (receivedFrames++ % interval) != 0)
+            return;
+        if (!queue.offer(new Capture(frame.copy(), System.nanoTime())))
+            droppedFrames.incrementAndGet();
+    }
+
+    /**
+     * Stops recording. The frames already captured are still encoded.
+     *
+     * @return A future completed with the file once the animation has been written, or completed exceptionally if
+     * recording has failed. The file is not created if no frames have been recorded.
+     */
+    public CompletableFuture<File> stop() {
+        if (!stopped) {
+            stopTime = System.nanoTime();
+            stopped = true;
+        }
+        return result;
+    }
+
+    private void encodeFrames() {
+        ApngWriter writer = null;
+        Capture pending = null;
+        try {
+            while (true) {
+                Capture capture = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (capture == null) {
+                    if (stopped)
+                        break;
+                    continue;
+                }
+                //identical frames only extend the time the pending frame is shown
+                if (pending != null && pending.frame.contentEquals(capture.frame))
+                    continue;
+                if (pending != null) {
+                    if (writer == null)
+                        writer = new ApngWriter(file, encoder, pending.frame.getWidth(), pending.frame.getHeight());
+                    writer.addFrame(pending.frame, toDelay(capture.timestamp - pending.timestamp));
+                    recordedFrames++;
+                }
+                pending = capture;
+            }
+            if (pending != null) {
+                if (writer == null)
+                    writer = new ApngWriter(file, encoder, pending.frame.getWidth(), pending.frame.getHeight());
+                writer.addFrame(pending.frame, toDelay(stopTime - pending.timestamp));
+                recordedFrames++;
+            }
+            if (writer != null)
+                writer.close();
+            log.debug("Recorded {} frames to '{}' ({} dropped)", recordedFrames, file, droppedFrames.get());
+            result.complete(file);
+        } catch (Exception e) {
+            log.error("Recording to '{}' has failed", file, e);
+            stopped = true;
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (Exception ignored) {
+                    //already failed
+                }
+            }
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static int toDelay(long nanos) {
+        return (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isRecording() {
+        return !stopped;
+    }
+
+    /**
+     * @return The number of distinct frames written so far
+     */
+    public long getRecordedFrames() {
+        return recordedFrames;
+    }
+
+    /**
+     * @return The number of frames dropped because the encoder could not keep up
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+}
@@ -47,7 +47,11 @@ public class GlcdBufferProcessor extends GlcdByteProcessor {
 
     @Override
     public void initialize() {
-        this.bufferLayout = BufferLayoutFactory.createBufferLayout(getDisplay(), getBuffer());
+        if (isTileUpdates())
+            this.bufferLayout = BufferLayoutFactory.createTileBufferLayout(getBuffer());
+        else
+            this.bufferLayout = BufferLayoutFactory.createBufferLayout(getDisplay(), getBuffer());
+        this.bufferLayout.setIncremental(isIncrementalFlush());
         this.processedBytes = 0;
         getStats().getBytesPerFrame().set(getBuffer().size());
         log.info("Initializing buffer layout: {}", bufferLayout);
@@ -58,39 +62,83 @@ public class GlcdBufferProcessor extends GlcdByteProcessor {
         if (bufferLayout == null)
             return;
 
-        ByteProcessStats stats = this.getStats();
         bufferLayout.processByte(data);
-        countBytes();
+        countBytes(1);
+        countDuplicateFrames();
 
         //have we reached the end of buffer?
-        if (++processedBytes == getBuffer().size()) {
-            int bytesPerFrame = stats.getBytesPerFrame().getAndSet(0);
-            if (stats.getFrameSize() != bytesPerFrame)
-                Platform.runLater(() -> stats.setFrameSize(bytesPerFrame));
-            stats.getFpsCounter().count();
-            processedBytes = 0;
+        if (++processedBytes == getBuffer().size())
+            completeFrame();
+
+        pulseCounters();
+    }
+
+    /**
+     * Process a run of bytes. The run is split at frame boundaries and each part is handed to the buffer layout in one
+     * go.
+     */
+    @Override
+    public void process(byte[] data, int offset, int length) {
+        if (bufferLayout == null)
+            return;
+
+        int frameSize = getBuffer().size();
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(end - offset, frameSize - processedBytes);
+            bufferLayout.processBuffer(data, offset, count);
+            offset += count;
+            countBytes(count);
+            countDuplicateFrames();
+            processedBytes += count;
+            if (processedBytes == frameSize)
+                completeFrame();
         }
 
         pulseCounters();
     }
 
+    private void completeFrame() {
+        ByteProcessStats stats = this.getStats();
+        //self publishing layouts (e.g. vertical layouts in incremental mode) have already published the frame
+        if (!bufferLayout.isSelfPublishing() && !getBuffer().publish())
+            stats.countDuplicateFrame();
+        int bytesPerFrame = stats.getBytesPerFrame().getAndSet(0);
+        if (stats.getFrameSize() != bytesPerFrame)
+            Platform.runLater(() -> stats.setFrameSize(bytesPerFrame));
+        stats.getFpsCounter().count();
+        processedBytes = 0;
+    }
+
+    /**
+     * Adds the duplicate frames dropped by self publishing layouts to the stats
+     */
+    private void countDuplicateFrames() {
+        int duplicates = bufferLayout.pollDuplicateFrames();
+        if (duplicates > 0)
+            getStats().countDuplicateFrames(duplicates);
+    }
+
     private void pulseCounters() {
         getStats().getByteCounter().pulse();
         getStats().getFpsCounter().pulse();
+        getStats().getDuplicateFrameCounter().pulse();
     }
 
-    private void countBytes() {
-        getStats().getBytesPerFrame().getAndIncrement();
-        getStats().getByteCounter().count();
+    private void countBytes(int count) {
+        getStats().getBytesPerFrame().getAndAdd(count);
+        getStats().getByteCounter().count(count);
     }
 
     @Override
     public void reset() {
         this.processedBytes = 0;
         bufferLayout.reset();
+        bufferLayout.pollDuplicateFrames();
         getStats().getBytesPerFrame().set(0);
         getStats().getFpsCounter().reset();
         getStats().getByteCounter().reset();
+        getStats().getDuplicateFrameCounter().reset();
         Platform.runLater(() -> getStats().setFrameSize(0));
     }
 }
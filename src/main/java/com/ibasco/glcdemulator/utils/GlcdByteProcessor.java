@@ -27,7 +27,9 @@ package com.ibasco.glcdemulator.utils;
 
 import com.ibasco.ucgdisplay.drivers.glcd.GlcdDisplay;
 import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 
 abstract public class GlcdByteProcessor {
@@ -40,6 +42,10 @@ abstract public class GlcdByteProcessor {
 
     private ObjectProperty<ByteProcessStats> stats = new SimpleObjectProperty<>();
 
+    private BooleanProperty incrementalFlush = new SimpleBooleanProperty(false);
+
+    private BooleanProperty tileUpdates = new SimpleBooleanProperty(false);
+
     protected GlcdDisplay getDisplay() {
         return display.get();
     }
@@ -88,6 +94,42 @@ abstract public class GlcdByteProcessor {
         this.stats.set(stats);
     }
 
+    protected boolean isIncrementalFlush() {
+        return incrementalFlush.get();
+    }
+
+    /**
+     * If true, partially received frames are published as soon as a part of the frame (e.g. a page) is complete.
+     * Only applies to buffer layouts which support it.
+     *
+     * @return The incremental flush property
+     */
+    public BooleanProperty incrementalFlushProperty() {
+        return incrementalFlush;
+    }
+
+    protected void setIncrementalFlush(boolean incrementalFlush) {
+        this.incrementalFlush.set(incrementalFlush);
+    }
+
+    protected boolean isTileUpdates() {
+        return tileUpdates.get();
+    }
+
+    /**
+     * If true, incoming data is interpreted as tile addressed updates (see {@link com.ibasco.glcdemulator.emulator.TileBufferLayout})
+     * instead of a stream of complete frames. Only applies to buffer processors.
+     *
+     * @return The tile updates property
+     */
+    public BooleanProperty tileUpdatesProperty() {
+        return tileUpdates;
+    }
+
+    protected void setTileUpdates(boolean tileUpdates) {
+        this.tileUpdates.set(tileUpdates);
+    }
+
     /**
      * Initialize properties
      */
@@ -98,6 +140,22 @@ abstract public class GlcdByteProcessor {
      */
     abstract public void process(byte data);
 
+    /**
+     * Process a run of bytes, the same as calling {@link #process(byte)} for each byte. Processors override this to
+     * handle whole blocks at a time.
+     *
+     * @param data
+     *         The source array
+     * @param offset
+     *         The offset of the first byte
+     * @param length
+     *         The number of bytes
+     */
+    public void process(byte[] data, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++)
+            process(data[i]);
+    }
+
     /**
      * Reset properties
      */
@@ -27,8 +27,6 @@ package com.ibasco.glcdemulator.utils;
 
 import com.ibasco.glcdemulator.emulator.GlcdEmulator;
 import com.ibasco.glcdemulator.emulator.GlcdEmulatorFactory;
-import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
-import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
 import javafx.application.Platform;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +55,9 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
 
     private int collectSize = -1;
 
+    //state of the data/command line, data is assumed until the client selects it
+    private boolean commandMode = false;
+
     private ByteBuffer tmpBuffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
 
     public static final Logger log = LoggerFactory.getLogger(GlcdInstructionProcessor.class);
@@ -84,6 +85,9 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
             //If the current byte is not the start byte, skip
             if (value == MSG_START && !collectData) {
                 if (stats.getBytesPerFrame().get() > 0) {
+                    emulator.flush();
+                    if (!getBuffer().publish())
+                        stats.countDuplicateFrame();
                     int frameSize = stats.getBytesPerFrame().getAndSet(0);
                     if (stats.getFrameSize() != frameSize)
                         Platform.runLater(() -> stats.setFrameSize(frameSize));
@@ -95,8 +99,6 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
             }
 
             if (processBytes.get()) {
-                U8g2ByteEvent event = null;
-
                 if (collectData) {
                     if (collectSize == -1) {
                         collectSize = Byte.toUnsignedInt(data);
@@ -108,15 +110,13 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
 
                     //check if we have collected the expected number of bytes
                     if (collectSize == tmpBuffer.position()) {
-                        //start processing the buffer
+                        //hand the whole run over to the emulator at once
                         try {
-                            tmpBuffer.flip();
-                            while (tmpBuffer.hasRemaining()) {
-                                int tmp = Byte.toUnsignedInt(tmpBuffer.get());
-                                event = new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, tmp);
-                                emulator.onByteEvent(event);
-                                pulseCounters();
-                            }
+                            if (commandMode)
+                                emulator.onCommand(tmpBuffer.array(), 0, tmpBuffer.position());
+                            else
+                                emulator.onData(tmpBuffer.array(), 0, tmpBuffer.position());
+                            pulseCounters();
                         } finally {
                             tmpBuffer.clear();
                             collectSize = -1;
@@ -127,18 +127,14 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
                 }
 
                 if (value == MSG_DC_0) {
-                    event = new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0);
+                    commandMode = true;
                 } else if (value == MSG_DC_1) {
-                    event = new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1);
+                    commandMode = false;
                 } else if (value == MSG_BYTE_SEND) {
                     collectData = true;
                     tmpBuffer.clear();
                 }
 
-                if (event != null) {
-                    emulator.onByteEvent(event);
-                }
-
                 countBytes();
             }
 
@@ -158,9 +154,11 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
             emulator.reset();
         }
         processBytes.set(false);
+        commandMode = false;
         getStats().getBytesPerFrame().set(0);
         getStats().getFpsCounter().reset();
         getStats().getByteCounter().reset();
+        getStats().getDuplicateFrameCounter().reset();
         Platform.runLater(() -> getStats().setFrameSize(0));
     }
 
@@ -172,5 +170,6 @@ public class GlcdInstructionProcessor extends GlcdByteProcessor {
     private void pulseCounters() {
         getStats().getByteCounter().pulse();
         getStats().getFpsCounter().pulse();
+        getStats().getDuplicateFrameCounter().pulse();
     }
 }
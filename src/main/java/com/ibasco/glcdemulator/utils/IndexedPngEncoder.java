@@ -0,0 +1,424 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: IndexedPngEncoder.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>Encodes frames as palette-indexed PNG images straight from the rows of a {@link PixelBuffer}, without going
+ * through a 32-bit ARGB image and {@code ImageIO}. Monochrome frames are stored with one bit per pixel, which keeps
+ * the files small and the encoding fast.</p>
+ *
+ * <p>Frames can be scaled up by an integer factor and surrounded by a margin and spacing between the pixels. Without
+ * margin and spacing, the image is written with a 1-bit palette (inactive and active pixel), otherwise with a 2-bit
+ * palette (background, inactive and active pixel). Since only whole pixels are used, the output stays pixel-exact at
+ * any scale. The rows of a scaled pixel and the empty rows of the margin and spacing are encoded with the PNG up filter,
+ * so they compress to almost nothing.</p>
+ *
+ * <p>Instances of this class are not thread-safe. Each thread re-uses its own {@link Deflater}, so encoders can be
+ * created freely without allocating native compression state per image.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class IndexedPngEncoder {
+
+    static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final int COLOR_TYPE_INDEXED = 3;
+
+    private static final byte FILTER_NONE = 0;
+
+    private static final byte FILTER_UP = 2;
+
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+
+    private int scale = 1;
+
+    private int spacing = 0;
+
+    private int margin = 0;
+
+    private int backgroundColor = 0xFFA5F242;
+
+    private int inactiveColor = 0x00000000;
+
+    private int activeColor = 0xFF000000;
+
+    private int compressionLevel = Deflater.BEST_SPEED;
+
+    //filter type followed by the packed indices of the current row
+    private byte[] scanline = new byte[0];
+
+    //a row identical to the previous one (up filter, all differences zero)
+    private byte[] repeatLine = new byte[0];
+
+    private long[] row = new long[0];
+
+    private final byte[] deflated = new byte[8192];
+
+    private final ByteArrayOutputStream chunkBuffer = new ByteArrayOutputStream(1024);
+
+    private final DataOutputStream chunkData = new DataOutputStream(chunkBuffer);
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Encodes a frame into a byte array
+     *
+     * @param frame
+     *         The frame to encode. Must not be modified by another thread while encoding.
+     *
+     * @return The PNG image
+     */
+    public byte[] encode(PixelBuffer frame) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try {
+            encode(frame, out);
+        } catch (IOException e) {
+            //never thrown by byte array streams
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes a frame and saves it as a PNG file
+     *
+     * @param frame
+     *         The frame to encode. Must not be modified by another thread while encoding.
+     * @param imageFile
+     *         The destination file. The png extension is appended if missing.
+     *
+     * @return The file the image has been written to
+     *
+     * @throws IOException
+     *         If the file could not be written
+     */
+    public File write(PixelBuffer frame, File imageFile) throws IOException {
+        if (!imageFile.getName().endsWith(".png"))
+            imageFile = new File(imageFile.getAbsolutePath() + ".png");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(imageFile))) {
+            encode(frame, out);
+        }
+        return imageFile;
+    }
+
+    /**
+     * Encodes a frame into a stream
+     *
+     * @param frame
+     *         The frame to encode. Must not be modified by another thread while encoding.
+     * @param out
+     *         The stream to write the PNG image to (not closed)
+     *
+     * @throws IOException
+     *         If the stream could not be written to
+     */
+    public void encode(PixelBuffer frame, OutputStream out) throws IOException {
+        out.write(SIGNATURE);
+        writeHeader(out, frame.getWidth(), frame.getHeight());
+        writePalette(out);
+        writeImageData(out, frame, "IDAT", -1);
+        beginChunk();
+        writeChunk(out, "IEND");
+    }
+
+    void writeHeader(OutputStream out, int displayWidth, int displayHeight) throws IOException {
+        DataOutputStream header = beginChunk();
+        header.writeInt(computeSize(displayWidth));
+        header.writeInt(computeSize(displayHeight));
+        header.writeByte(isPlain() ? 1 : 2);
+        header.writeByte(COLOR_TYPE_INDEXED);
+        header.writeByte(0); //deflate
+        header.writeByte(0); //adaptive filtering
+        header.writeByte(0); //no interlace
+        writeChunk(out, "IHDR");
+    }
+
+    /**
+     * Compresses the pixels of the frame and writes them as a chunk
+     *
+     * @param type
+     *         The chunk type (IDAT, or fdAT for the following frames of an animated image)
+     * @param sequence
+     *         The sequence number written in front of the data, -1 for none
+     */
+    void writeImageData(OutputStream out, PixelBuffer frame, String type, int sequence) throws IOException {
+        int displayWidth = frame.getWidth(), displayHeight = frame.getHeight();
+        boolean plain = isPlain();
+        int stride = ((computeSize(displayWidth) * (plain ? 1 : 2)) + 7) >>> 3;
+        if (scanline.length != stride + 1) {
+            scanline = new byte[stride + 1];
+            repeatLine = new byte[stride + 1];
+            repeatLine[0] = FILTER_UP;
+        }
+        int words = (displayWidth + 63) >>> 6;
+        if (row.length < words)
+            row = new long[words];
+
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setLevel(compressionLevel);
+        DataOutputStream data = beginChunk();
+        if (sequence >= 0)
+            data.writeInt(sequence);
+        //the leading spacing and top margin
+        writeBackgroundRows(deflater, margin + spacing);
+        for (int y = 0; y < displayHeight; y++) {
+            frame.readRow(y, row);
+            if (plain && scale == 1)
+                packRow(stride);
+            else
+                packScaledRow(displayWidth, plain);
+            writeRows(deflater, scale);
+            writeBackgroundRows(deflater, y < displayHeight - 1 ? spacing : spacing + margin);
+        }
+        deflater.finish();
+        while (!deflater.finished())
+            data.write(deflated, 0, deflater.deflate(deflated));
+        writeChunk(out, type);
+    }
+
+    void writePalette(OutputStream out) throws IOException {
+        boolean plain = isPlain();
+        //the pixels are composited over the background, so the palette is only translucent if the background is
+        int inactive = PixelRasterizer.blend(inactiveColor, backgroundColor, 255);
+        int active = PixelRasterizer.blend(activeColor, backgroundColor, 255);
+        int[] palette = plain ? new int[] {inactive, active} : new int[] {backgroundColor, inactive, active};
+        beginChunk();
+        boolean translucent = false;
+        for (int color : palette) {
+            chunkData.writeByte(color >>> 16);
+            chunkData.writeByte(color >>> 8);
+            chunkData.writeByte(color);
+            translucent |= (color >>> 24) != 0xFF;
+        }
+        writeChunk(out, "PLTE");
+        if (translucent) {
+            beginChunk();
+            for (int color : palette)
+                chunkData.writeByte(color >>> 24);
+            writeChunk(out, "tRNS");
+        }
+    }
+
+    /**
+     * Packs a row of the frame at 1-bit per pixel, most significant bit first
+     */
+    private void packRow(int stride) {
+        scanline[0] = FILTER_NONE;
+        for (int i = 0; i < stride; i++)
+            scanline[i + 1] = ByteUtils.reverse((byte) (row[i >>> 3] >>> ((i & 7) << 3)));
+    }
+
+    /**
+     * Packs a row of the frame with the scale, margin and spacing applied. Index 0 (all bits cleared) is the inactive
+     * pixel for 1-bit images and the background for 2-bit images.
+     */
+    private void packScaledRow(int displayWidth, boolean plain) {
+        byte[] scanline = this.scanline;
+        scanline[0] = FILTER_NONE;
+        Arrays.fill(scanline, 1, scanline.length, (byte) 0);
+        for (int x = 0, position = margin + spacing; x < displayWidth; x++, position += scale + spacing) {
+            boolean lit = ((row[x >>> 6] >>> (x & 63)) & 1) != 0;
+            if (plain) {
+                if (!lit)
+                    continue;
+                for (int p = position; p < position + scale; p++)
+                    scanline[1 + (p >>> 3)] |= 0x80 >>> (p & 7);
+            } else {
+                int index = lit ? 2 : 1;
+                for (int p = position; p < position + scale; p++)
+                    scanline[1 + (p >>> 2)] |= index << (6 - ((p & 3) << 1));
+            }
+        }
+    }
+
+    private void writeBackgroundRows(Deflater deflater, int count) throws IOException {
+        if (count == 0)
+            return;
+        scanline[0] = FILTER_NONE;
+        Arrays.fill(scanline, 1, scanline.length, (byte) 0);
+        writeRows(deflater, count);
+    }
+
+    /**
+     * Compresses the current scanline followed by copies of it
+     */
+    private void writeRows(Deflater deflater, int count) throws IOException {
+        deflate(deflater, scanline);
+        for (int i = 1; i < count; i++)
+            deflate(deflater, repeatLine);
+    }
+
+    private void deflate(Deflater deflater, byte[] line) throws IOException {
+        deflater.setInput(line);
+        while (!deflater.needsInput())
+            chunkData.write(deflated, 0, deflater.deflate(deflated));
+    }
+
+    /**
+     * Starts a new chunk
+     *
+     * @return The stream to write the data of the chunk to
+     */
+    DataOutputStream beginChunk() {
+        chunkBuffer.reset();
+        return chunkData;
+    }
+
+    /**
+     * Writes the data collected since {@link #beginChunk()} as a chunk
+     */
+    void writeChunk(OutputStream out, String type) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] data = chunkBuffer.toByteArray();
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data);
+        writeInt(out, data.length);
+        out.write(typeBytes);
+        out.write(data);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * @return True if the image is written with a 1-bit palette (no margin and spacing)
+     */
+    private boolean isPlain() {
+        return margin == 0 && spacing == 0;
+    }
+
+    /**
+     * @return The size of the image in pixels for a display dimension
+     */
+    int computeSize(int pixels) {
+        return (pixels * (scale + spacing)) + spacing + (margin * 2);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @param scale
+     *         The width and height of a display pixel in the image
+     */
+    public void setScale(int scale) {
+        if (scale < 1)
+            throw new IllegalArgumentException("Scale must be at least 1");
+        this.scale = scale;
+    }
+
+    public int getSpacing() {
+        return spacing;
+    }
+
+    /**
+     * @param spacing
+     *         The number of background pixels between two display pixels
+     */
+    public void setSpacing(int spacing) {
+        if (spacing < 0)
+            throw new IllegalArgumentException("Spacing cannot be negative");
+        this.spacing = spacing;
+    }
+
+    public int getMargin() {
+        return margin;
+    }
+
+    /**
+     * @param margin
+     *         The number of background pixels around the display
+     */
+    public void setMargin(int margin) {
+        if (margin < 0)
+            throw new IllegalArgumentException("Margin cannot be negative");
+        this.margin = margin;
+    }
+
+    public int getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    /**
+     * @param backgroundColor
+     *         The ARGB color of the backlight
+     */
+    public void setBackgroundColor(int backgroundColor) {
+        this.backgroundColor = backgroundColor;
+    }
+
+    public int getInactiveColor() {
+        return inactiveColor;
+    }
+
+    /**
+     * @param inactiveColor
+     *         The ARGB color of the inactive pixels, composited over the backlight
+     */
+    public void setInactiveColor(int inactiveColor) {
+        this.inactiveColor = inactiveColor;
+    }
+
+    public int getActiveColor() {
+        return activeColor;
+    }
+
+    /**
+     * @param activeColor
+     *         The ARGB color of the active pixels, composited over the backlight
+     */
+    public void setActiveColor(int activeColor) {
+        this.activeColor = activeColor;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @param compressionLevel
+     *         The deflate compression level (0-9), defaults to {@link Deflater#BEST_SPEED}
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9)
+            throw new IllegalArgumentException("Compression level must be between 0 and 9");
+        this.compressionLevel = compressionLevel;
+    }
+}
@@ -0,0 +1,228 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: MappedFrameExporter.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sun.misc.Unsafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>Exports published frames into a memory-mapped file (e.g. a file under {@code /dev/shm}) so that other processes
+ * on the same machine can read the emulated display without going through the GUI.</p>
+ *
+ * <p>The file starts with a 64-byte little-endian header followed by the pixel data in the row/byte layout of
+ * {@link PixelBuffer#copyTo(java.nio.ByteBuffer)} ({@code height * stride} bytes, least significant bit first).</p>
+ *
+ * <pre>
+ * offset  size  field
+ *      0     4  magic (0x44434C47, "GLCD")
+ *      4     4  version
+ *      8     4  width (pixels)
+ *     12     4  height (pixels)
+ *     16     4  stride (bytes per row)
+ *     20     4  pixel format (0 = 1bpp, least significant bit first)
+ *     24     8  sequence (odd while a frame is being written)
+ *     32     8  frame number
+ *     64     -  pixel data
+ * </pre>
+ *
+ * <p>Readers use the sequence field as a seqlock: read the sequence and retry if it is odd, read the dimensions and
+ * copy the pixel data, then read the sequence again and retry if it has changed. The mapping grows when the display
+ * is resized so readers should check the dimensions on every frame. Readers on weakly ordered platforms need a load
+ * fence between reading the pixel data and reading the sequence again.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class MappedFrameExporter implements FrameListener, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedFrameExporter.class);
+
+    public static final int MAGIC = 0x44434C47;
+
+    public static final int VERSION = 1;
+
+    public static final int FORMAT_1BPP_LSB = 0;
+
+    public static final int HEADER_SIZE = 64;
+
+    private static final int OFFSET_MAGIC = 0;
+
+    private static final int OFFSET_VERSION = 4;
+
+    private static final int OFFSET_WIDTH = 8;
+
+    private static final int OFFSET_HEIGHT = 12;
+
+    private static final int OFFSET_STRIDE = 16;
+
+    private static final int OFFSET_FORMAT = 20;
+
+    private static final int OFFSET_SEQUENCE = 24;
+
+    private static final int OFFSET_FRAME = 32;
+
+    //plain stores to the mapping are only ordered against the sequence updates through explicit store fences
+    private static final Unsafe UNSAFE = loadUnsafe();
+
+    private final Path file;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer mapped;
+
+    private int width = -1;
+
+    private int height = -1;
+
+    private long sequence;
+
+    private long frameNumber;
+
+    /**
+     * Create a new exporter writing to the specified file. The file is created if it does not exist and is mapped once
+     * the first frame is received.
+     *
+     * @param file
+     *         The path of the file to export the frames to
+     *
+     * @throws IOException
+     *         When the file could not be opened
+     */
+    public MappedFrameExporter(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes the frame to the mapped file. Every published frame must be passed to this method, since only the
+     * {@link PixelBuffer#getChangedRegions() changed regions} are written once the file is mapped.
+     */
+    @Override
+    public synchronized void onFrame(PixelBuffer frame) {
+        if (channel == null)
+            return;
+        try {
+            boolean remapped = false;
+            if (mapped == null || frame.getWidth() != width || frame.getHeight() != height) {
+                map(frame.getWidth(), frame.getHeight());
+                remapped = true;
+            }
+            beginWrite();
+            if (remapped) {
+                mapped.position(HEADER_SIZE);
+                frame.copyTo(mapped);
+            } else {
+                //the mapping already holds the previous frame, only the changed rows are rewritten
+                int stride = width / 8;
+                for (PixelRegion region : frame.getChangedRegions()) {
+                    mapped.position(HEADER_SIZE + region.getY() * stride);
+                    frame.copyTo(mapped, region.getY(), region.getHeight());
+                }
+            }
+            mapped.putLong(OFFSET_FRAME, ++frameNumber);
+            endWrite();
+        } catch (IOException e) {
+            log.error("Could not export frame to '{}', frame export disabled", file, e);
+            close();
+        }
+    }
+
+    private void map(int width, int height) throws IOException {
+        int stride = width / 8;
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) stride * height);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        beginWrite();
+        mapped.putInt(OFFSET_MAGIC, MAGIC);
+        mapped.putInt(OFFSET_VERSION, VERSION);
+        mapped.putInt(OFFSET_WIDTH, width);
+        mapped.putInt(OFFSET_HEIGHT, height);
+        mapped.putInt(OFFSET_STRIDE, stride);
+        mapped.putInt(OFFSET_FORMAT, FORMAT_1BPP_LSB);
+        endWrite();
+        this.width = width;
+        this.height = height;
+        log.debug("Mapped frame export file '{}' ({} x {})", file, width, height);
+    }
+
+    /**
+     * Makes the sequence odd. The fence keeps the following data stores from becoming visible before it.
+     */
+    private void beginWrite() {
+        mapped.putLong(OFFSET_SEQUENCE, ++sequence);
+        UNSAFE.storeFence();
+    }
+
+    /**
+     * Makes the sequence even. The fence keeps it from becoming visible before the preceding data stores.
+     */
+    private void endWrite() {
+        UNSAFE.storeFence();
+        mapped.putLong(OFFSET_SEQUENCE, ++sequence);
+    }
+
+    private static Unsafe loadUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to access sun.misc.Unsafe", e);
+        }
+    }
+
+    /**
+     * @return The path of the file the frames are exported to
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Closes the underlying file. Frames received after this call are ignored.
+     */
+    @Override
+    public synchronized void close() {
+        if (channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing frame export file '{}'", file, e);
+        } finally {
+            channel = null;
+            mapped = null;
+        }
+    }
+}
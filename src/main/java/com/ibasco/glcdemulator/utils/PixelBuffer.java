@@ -34,19 +34,61 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A generic display buffer interface which provides read/write access of pixel data. This class is NOT thread-safe.
  *
+ * <p>Pixels are stored in a single row-major array of 64-bit words. Each row occupies {@code ceil(width / 64)}
+ * words and pixel {@code x} of a row is bit {@code (x % 64)} of word {@code (x / 64)}. This keeps the byte
+ * ordering of the original {@code byte[][]} layout (byte {@code n} of a row is bits {@code 8n} to {@code 8n + 7}
+ * of the row, least significant bit first) while allowing whole-word clear, compare and copy operations.
+ * Unused bits at the end of a row are always zero.</p>
+ *
+ * <p>Modified pixels are tracked per 8x8 tile. Consumers interested only in what has changed since their last
+ * visit can call {@link #drainDirtyRegions()} which returns the merged changed areas and clears the tracking
+ * state (including the {@link #invalidatedProperty()} flag). Buffers that are published are drained by
+ * {@link #publish()} instead, the regions of each published frame are available from
+ * {@link #getChangedRegions()} of the frame handed to readers and {@link FrameListener}s.</p>
+ *
+ * <p>When a buffer is written by a background thread, the writer calls {@link #publish()} once a frame is complete
+ * and readers on other threads use {@link #getPublishedFrame()} to obtain a stable copy of the latest frame (see
+ * {@link FrameExchange}). {@link FrameListener}s registered on the buffer are notified on the writer thread each time a
+ * frame is published.</p>
+ *
  * @author Rafael Ibasco
  */
 public class PixelBuffer {
 
     private static final Logger log = LoggerFactory.getLogger(PixelBuffer.class);
 
-    private byte[][] buffer;
+    private static final int WORD_BITS = 64;
+
+    private static final int WORD_SHIFT = 6;
+
+    private static final int TILE_SHIFT = 3;
+
+    private long[] buffer;
+
+    private int wordsPerRow;
+
+    private int bytesPerRow;
+
+    //one bit per 8x8 tile, tile (tx, ty) is bit (tx % 64) of word (ty * dirtyWordsPerRow) + (tx / 64)
+    private long[] dirtyTiles;
+
+    private int dirtyWordsPerRow;
+
+    //plain copies of the width/height properties, used on the hot paths
+    private int bufferWidth;
+
+    private int bufferHeight;
 
     private ReadOnlyIntegerWrapper width = new ReadOnlyIntegerWrapper();
 
@@ -54,15 +96,32 @@ public class PixelBuffer {
 
     private ReadOnlyBooleanWrapper invalidated = new ReadOnlyBooleanWrapper();
 
+    //plain copy of the invalidated property, checked before touching the property on writes
+    private boolean invalid;
+
     private boolean fair = true;
 
     private int xOffset = 0, yOffset = 0;
 
+    //created by the writer thread on the first published frame
+    private volatile FrameExchange frames;
+
+    private final List<FrameListener> frameListeners = new CopyOnWriteArrayList<>();
+
+    //set on every pixel change, used to skip hashing frames that have not been touched since the last publish
+    private boolean modified = true;
+
+    private long publishedHash;
+
+    //set on published frames by the frame exchange
+    private List<PixelRegion> changedRegions = Collections.emptyList();
+
     public PixelBuffer(byte[][] copy) {
-        this.buffer = new byte[copy.length][copy[0].length];
-        this.width.set(copy[0].length);
-        this.height.set(copy.length);
-        copyBuffer(copy, this.buffer);
+        this(copy[0].length * 8, copy.length);
+        for (int y = 0; y < copy.length; y++) {
+            for (int x = 0; x < copy[y].length; x++)
+                putByte(x, y, copy[y][x]);
+        }
     }
 
     /**
@@ -90,8 +149,7 @@ public class PixelBuffer {
     public PixelBuffer(int width, int height, boolean fair) {
         checkDimensions(width, height);
         this.buffer = allocate(width, height);
-        this.width.set(width);
-        this.height.set(height);
+        updateDimensions(width, height);
         this.fair = fair;
     }
 
@@ -117,8 +175,20 @@ public class PixelBuffer {
         write(x, y, state > 0);
     }
 
+    /**
+     * Copies the contents of another buffer into this buffer. If the dimensions differ, the overlapping region is
+     * copied and the remaining columns of each copied row are cleared.
+     *
+     * @param buffer
+     *         The source {@link PixelBuffer}
+     */
     public void write(PixelBuffer buffer) {
-        copyBuffer(buffer.getBuffer(), this.buffer);
+        if (buffer.bufferWidth == this.bufferWidth && buffer.bufferHeight == this.bufferHeight) {
+            System.arraycopy(buffer.buffer, 0, this.buffer, 0, this.buffer.length);
+        } else {
+            copyRows(buffer.buffer, buffer.wordsPerRow, buffer.bufferHeight);
+        }
+        markAllDirty();
     }
 
     /**
@@ -128,16 +198,65 @@ public class PixelBuffer {
      *         8-bit data to be written
      */
     public void write(byte data) {
-        buffer[yOffset][xOffset++] = data;
-        if (xOffset >= buffer[yOffset].length) {
+        if (putByte(xOffset, yOffset, data))
+            markDirty(xOffset << 3, yOffset);
+        if (++xOffset >= bytesPerRow) {
             yOffset++;
             xOffset = 0;
         }
-        markInvalid();
+    }
+
+    /**
+     * Writes bytes sequentially starting at the current position, the same as calling {@link #write(byte)} for each
+     * byte. Whole words of a row are written at once and each row is marked dirty once. Writing stops at the end of
+     * the buffer, the remaining source bytes are left untouched.
+     *
+     * @param source
+     *         The source bytes, read from the current position of the source buffer
+     * @param msbFirst
+     *         True if the most significant bit of a source byte is the left-most pixel
+     *
+     * @return The number of bytes written
+     */
+    public int write(ByteBuffer source, boolean msbFirst) {
+        ByteOrder order = source.order();
+        //a big-endian word with all 64 bits reversed is the little-endian word of the bit-reversed bytes
+        source.order(msbFirst ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        int written = 0;
+        try {
+            while (source.hasRemaining() && yOffset < bufferHeight) {
+                int start = xOffset;
+                int end = start + Math.min(source.remaining(), bytesPerRow - start);
+                int rowIndex = yOffset * wordsPerRow;
+                int column = start;
+                boolean changed = false;
+                for (; column < end && (column & 0x7) != 0; column++)
+                    changed |= putByte(column, yOffset, msbFirst ? ByteUtils.reverse(source.get()) : source.get());
+                for (; column + 8 <= end; column += 8) {
+                    long word = msbFirst ? Long.reverse(source.getLong()) : source.getLong();
+                    int index = rowIndex + (column >>> 3);
+                    changed |= buffer[index] != word;
+                    buffer[index] = word;
+                }
+                for (; column < end; column++)
+                    changed |= putByte(column, yOffset, msbFirst ? ByteUtils.reverse(source.get()) : source.get());
+                if (changed)
+                    markDirty(start << 3, yOffset, (end - start) << 3, 1);
+                written += end - start;
+                xOffset = end;
+                if (xOffset >= bytesPerRow) {
+                    yOffset++;
+                    xOffset = 0;
+                }
+            }
+        } finally {
+            source.order(order);
+        }
+        return written;
     }
 
     public int size() {
-        return buffer[0].length * buffer.length;
+        return bytesPerRow * bufferHeight;
     }
 
     /**
@@ -151,7 +270,7 @@ public class PixelBuffer {
      * @return The current position of the buffer. This can also be considered as the number of bytes written to the buffer
      */
     public int position() {
-        return xOffset + ((width.get() / 8) * yOffset);
+        return xOffset + (bytesPerRow * yOffset);
     }
 
     public int xPosition() {
@@ -173,11 +292,9 @@ public class PixelBuffer {
      * @return True if the buffer is empty
      */
     public boolean isEmpty() {
-        for (byte[] row : buffer) {
-            for (byte col : row) {
-                if (col != 0)
-                    return false;
-            }
+        for (long word : buffer) {
+            if (word != 0)
+                return false;
         }
         return true;
     }
@@ -193,17 +310,160 @@ public class PixelBuffer {
      *         True to set the pixel into ON state, otherwise False for OFF
      */
     public void write(int x, int y, boolean state) {
-        Objects.requireNonNull(buffer);
         if (!checkBounds(x, y)) {
             if (fair)
                 return;
-            throw new IndexOutOfBoundsException(String.format("X or Y indices are out of bounds. (ACTUAL: x=%d, y=%d, MAX: x=%d, y=%d)", x, y, width.get() - 1, height.get() - 1));
+            throw new IndexOutOfBoundsException(String.format("X or Y indices are out of bounds. (ACTUAL: x=%d, y=%d, MAX: x=%d, y=%d)", x, y, bufferWidth - 1, bufferHeight - 1));
+        }
+        int index = (y * wordsPerRow) + (x >>> WORD_SHIFT);
+        long word = buffer[index];
+        //branch-free update, shift distances are implicitly masked to (x % 64)
+        long updated = (word & ~(1L << x)) | ((state ? 1L : 0L) << x);
+        buffer[index] = updated;
+        if (updated != word)
+            markDirty(x, y);
+    }
+
+    /**
+     * Writes a horizontal run of up to 64 pixels starting at the specified coordinates. Pixels falling outside the
+     * buffer are clipped (or rejected if this buffer is not fair).
+     *
+     * @param x
+     *         The x-coordinate of the first pixel
+     * @param y
+     *         The y-coordinate of the row
+     * @param bits
+     *         The pixel states packed into a long, the least significant bit is the left-most pixel
+     * @param length
+     *         The number of pixels to write (0 to 64)
+     */
+    public void writeSpan(int x, int y, long bits, int length) {
+        if (length <= 0)
+            return;
+        if (length > WORD_BITS)
+            throw new IllegalArgumentException("Span length must not exceed " + WORD_BITS + " pixels (actual: " + length + ")");
+        if (x < 0 || y < 0 || y >= bufferHeight || (x + length) > bufferWidth) {
+            if (!fair)
+                throw new IndexOutOfBoundsException(String.format("Span is out of bounds. (ACTUAL: x=%d, y=%d, length=%d, MAX: x=%d, y=%d)", x, y, length, bufferWidth - 1, bufferHeight - 1));
+            if (y < 0 || y >= bufferHeight || x >= bufferWidth || (x + length) <= 0)
+                return;
+            if (x < 0) {
+                bits >>>= -x;
+                length += x;
+                x = 0;
+            }
+            length = Math.min(length, bufferWidth - x);
+        }
+        if (putBits(y * wordsPerRow, x, bits, length))
+            markDirty(x, y, length, 1);
+    }
+
+    /**
+     * Writes a vertical column of 8 pixels aligned to a page (a group of 8 rows), as used by paged display controllers.
+     *
+     * @param x
+     *         The x-coordinate of the column
+     * @param page
+     *         The page index (y-coordinate / 8)
+     * @param data
+     *         The pixel states, the least significant bit is the top-most pixel of the page
+     */
+    public void writeColumn(int x, int page, byte data) {
+        int y = page << TILE_SHIFT;
+        if (x < 0 || x >= bufferWidth || page < 0 || y >= bufferHeight) {
+            if (fair)
+                return;
+            throw new IndexOutOfBoundsException(String.format("Column is out of bounds. (ACTUAL: x=%d, page=%d, MAX: x=%d, page=%d)", x, page, bufferWidth - 1, (bufferHeight >>> TILE_SHIFT) - 1));
         }
-        int xpos = calculateXPos(x);
-        if ((BitUtils.readBit(buffer[y][xpos], x) == 1) != state) {
-            buffer[y][xpos] = BitUtils.writeBit(buffer[y][xpos], x, state);
-            markInvalid();
+        int index = (y * wordsPerRow) + (x >>> WORD_SHIFT);
+        long mask = 1L << x;
+        long changed = 0;
+        for (int bit = 0; bit < 8; bit++, index += wordsPerRow) {
+            long word = buffer[index];
+            long updated = (word & ~mask) | ((long) ((data >>> bit) & 0x1) << x);
+            buffer[index] = updated;
+            changed |= updated ^ word;
         }
+        if (changed != 0)
+            markDirty(x, y);
+    }
+
+    /**
+     * Writes 8 adjacent page columns (an 8x8 block of pixels) at once. The columns are transposed into rows so each
+     * row of the block is written with a single word update.
+     *
+     * @param x
+     *         The x-coordinate of the first column
+     * @param page
+     *         The page index (y-coordinate / 8)
+     * @param columns
+     *         The column bytes, byte {@code n} (least significant first) is column {@code x + n} with the least
+     *         significant bit as the top-most pixel of the page
+     */
+    public void writeColumns(int x, int page, long columns) {
+        int y = page << TILE_SHIFT;
+        if (x < 0 || x + 8 > bufferWidth || page < 0 || y >= bufferHeight) {
+            //partially visible blocks are written one column at a time
+            for (int n = 0; n < 8; n++)
+                writeColumn(x + n, page, (byte) (columns >>> (n << 3)));
+            return;
+        }
+        long rows = BitUtils.transpose8x8(columns);
+        int rowIndex = y * wordsPerRow;
+        boolean changed = false;
+        for (int row = 0; row < 8; row++, rowIndex += wordsPerRow)
+            changed |= putBits(rowIndex, x, rows >>> (row << 3), 8);
+        if (changed)
+            markDirty(x, y, 8, 8);
+    }
+
+    /**
+     * Copies a packed rectangular block of pixels into the buffer. Each row of the source occupies {@code stride}
+     * bytes, least significant bit first. Pixels falling outside the buffer are clipped (or rejected if this buffer is
+     * not fair).
+     *
+     * @param x
+     *         The x-coordinate of the top-left pixel of the destination
+     * @param y
+     *         The y-coordinate of the top-left pixel of the destination
+     * @param width
+     *         The width of the block (in pixels)
+     * @param height
+     *         The height of the block (in pixels)
+     * @param data
+     *         The source data
+     * @param offset
+     *         The offset of the first source byte
+     * @param stride
+     *         The number of bytes per source row
+     */
+    public void blit(int x, int y, int width, int height, byte[] data, int offset, int stride) {
+        if (width <= 0 || height <= 0)
+            return;
+        if (stride < ((width + 7) >>> 3) || offset < 0 || (offset + ((long) stride * (height - 1)) + ((width + 7) >>> 3)) > data.length)
+            throw new IllegalArgumentException(String.format("Source data is too small for the block (width=%d, height=%d, offset=%d, stride=%d, length=%d)", width, height, offset, stride, data.length));
+
+        //clipped destination area and the source pixel it starts from
+        int left = Math.max(x, 0), top = Math.max(y, 0);
+        int right = Math.min(x + width, bufferWidth), bottom = Math.min(y + height, bufferHeight);
+        if (!fair && (left != x || top != y || right != x + width || bottom != y + height))
+            throw new IndexOutOfBoundsException(String.format("Block is out of bounds. (ACTUAL: x=%d, y=%d, width=%d, height=%d, MAX: x=%d, y=%d)", x, y, width, height, bufferWidth - 1, bufferHeight - 1));
+        if (left >= right || top >= bottom)
+            return;
+
+        int sourceX = left - x;
+        boolean changed = false;
+        for (int row = top; row < bottom; row++) {
+            int sourceRow = offset + ((row - y) * stride);
+            int rowIndex = row * wordsPerRow;
+            for (int dx = left; dx < right; dx += WORD_BITS) {
+                int length = Math.min(WORD_BITS, right - dx);
+                long bits = getBits(data, sourceRow, sourceX + (dx - left), length);
+                changed |= putBits(rowIndex, dx, bits, length);
+            }
+        }
+        if (changed)
+            markDirty(left, top, right - left, bottom - top);
     }
 
     /**
@@ -217,39 +477,46 @@ public class PixelBuffer {
      * @return The pixel state 1 = on, 0 = off. -1 if the the coordinates provided are out of bounds
      */
     public int read(int x, int y) {
-        Objects.requireNonNull(buffer);
         if (!checkBounds(x, y)) {
             if (fair)
                 return 0;
-            throw new IndexOutOfBoundsException(String.format("X or Y indices are out of bounds. (ACTUAL: x=%d, y=%d, MAX: x=%d, y=%d)", x, y, width.get() - 1, height.get() - 1));
-        }
-        if (y > (buffer.length - 1))
-            return -1;
-        int bufferX = calculateXPos(x);
-        if (bufferX > (buffer[y].length - 1)) {
-            return -1;
+            throw new IndexOutOfBoundsException(String.format("X or Y indices are out of bounds. (ACTUAL: x=%d, y=%d, MAX: x=%d, y=%d)", x, y, bufferWidth - 1, bufferHeight - 1));
         }
-        invalidated.set(false);
-        return BitUtils.readBit(buffer[y][bufferX], x);
+        return (int) (buffer[(y * wordsPerRow) + (x >>> WORD_SHIFT)] >>> x) & 0x1;
+    }
+
+    /**
+     * Copies a row of pixels into the target array, 64 pixels per element with the leftmost pixel in the least
+     * significant bit. Bits past the width of the buffer are always zero.
+     *
+     * @param y
+     *         The y-coordinate of the row
+     * @param target
+     *         The target array, must hold at least {@code (getWidth() + 63) / 64} elements
+     */
+    public void readRow(int y, long[] target) {
+        if (y < 0 || y >= bufferHeight)
+            throw new IndexOutOfBoundsException(String.format("Row is out of bounds. (ACTUAL: y=%d, MAX: y=%d)", y, bufferHeight - 1));
+        System.arraycopy(buffer, y * wordsPerRow, target, 0, wordsPerRow);
     }
 
     public void print(StringBuilder sb) {
         sb.append(StringUtils.repeat('-', 114));
         sb.append("\n");
         sb.append(StringUtils.repeat(' ', 2));
-        for (int x0 = 0; x0 < buffer[0].length; x0++) {
+        for (int x0 = 0; x0 < bytesPerRow; x0++) {
             sb.append(StringUtils.repeat(' ', 3));
             sb.append(StringUtils.leftPad(String.valueOf(x0), 4));
         }
         sb.append("\n");
         sb.append(StringUtils.repeat('-', 114));
         sb.append("\n");
-        for (int y = 0; y < buffer.length; y++) {
+        for (int y = 0; y < bufferHeight; y++) {
             sb.append(StringUtils.rightPad(String.valueOf(y), 3));
             sb.append("| ");
-            for (int x = 0; x < buffer[y].length; x++) {
+            for (int x = 0; x < bytesPerRow; x++) {
                 sb.append("0x");
-                sb.append(StringUtils.rightPad(ByteUtils.toHexString(buffer[y][x]), 4));
+                sb.append(StringUtils.rightPad(ByteUtils.toHexString(getByte(x, y)), 4));
                 sb.append(" ");
             }
             sb.append("\n");
@@ -270,57 +537,357 @@ public class PixelBuffer {
 
         checkDimensions(newWidth, newHeight);
 
-        int height = newHeight == null ? this.height.get() : newHeight;
-        int width = newWidth == null ? this.width.get() : newWidth;
+        int height = newHeight == null ? this.bufferHeight : newHeight;
+        int width = newWidth == null ? this.bufferWidth : newWidth;
 
         //If same dimension, do not proceed
         if ((width == getWidth()) && (height == getHeight())) {
             return;
         }
 
-        byte[][] tmp = allocate(width, height);
-        copyBuffer(this.buffer, tmp);
-        this.buffer = tmp;
+        long[] source = this.buffer;
+        int sourceWordsPerRow = this.wordsPerRow;
+        int sourceHeight = this.bufferHeight;
 
-        this.width.set(width);
-        this.height.set(height);
+        this.buffer = allocate(width, height);
+        updateDimensions(width, height);
+        copyRows(source, sourceWordsPerRow, sourceHeight);
+        markAllDirty();
         log.debug("Pixel buffer resized (Width: {}, Height: {})", width, height);
     }
 
     /**
-     * Clears the buffer by setting each value to null
+     * Clears the buffer by setting each value to zero
      */
     public void clear() {
-        for (int y = 0; y < buffer.length; y++) {
-            for (int x = 0; x < buffer[y].length; x++) {
-                buffer[y][x] = 0;
+        Arrays.fill(buffer, 0L);
+        markAllDirty();
+    }
+
+    /**
+     * @return True if pixels have been modified since the last call to {@link #drainDirtyRegions()}
+     */
+    public boolean hasDirtyRegions() {
+        for (long word : dirtyTiles) {
+            if (word != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the areas of the buffer that have been modified since the last call to this method and resets the
+     * tracking state. Changes are tracked with a granularity of 8x8 pixels. Horizontally adjacent tiles are merged into
+     * spans and spans covering the same columns on consecutive tile rows are merged into a single region.
+     *
+     * @return A list of changed regions (in pixels). Empty if nothing has changed.
+     */
+    public List<PixelRegion> drainDirtyRegions() {
+        List<PixelRegion> regions = new ArrayList<>();
+        int tileColumns = bufferWidth >>> TILE_SHIFT;
+        int tileRows = bufferHeight >>> TILE_SHIFT;
+
+        //regions still growing downwards, indexed by their starting tile column
+        int[] openStart = new int[tileColumns];
+        int[] openEnd = new int[tileColumns];
+        int[] openRow = new int[tileColumns];
+        int[] nextStart = new int[tileColumns];
+        int[] nextEnd = new int[tileColumns];
+        int[] nextRow = new int[tileColumns];
+        int open = 0;
+
+        for (int ty = 0; ty <= tileRows; ty++) {
+            int next = 0, o = 0;
+            int tx = 0;
+            while (ty < tileRows && (tx = nextDirtyTile(ty, tx, tileColumns)) < tileColumns) {
+                int start = tx;
+                while (tx < tileColumns && isTileDirty(ty, tx))
+                    tx++;
+                //close open regions that ended before this span
+                while (o < open && openStart[o] < start) {
+                    regions.add(toRegion(openStart[o], openEnd[o], openRow[o], ty));
+                    o++;
+                }
+                int row = ty;
+                if (o < open && openStart[o] == start) {
+                    if (openEnd[o] == tx) {
+                        row = openRow[o];
+                    } else {
+                        regions.add(toRegion(openStart[o], openEnd[o], openRow[o], ty));
+                    }
+                    o++;
+                }
+                nextStart[next] = start;
+                nextEnd[next] = tx;
+                nextRow[next++] = row;
+            }
+            while (o < open) {
+                regions.add(toRegion(openStart[o], openEnd[o], openRow[o], ty));
+                o++;
+            }
+            int[] tmp = openStart;
+            openStart = nextStart;
+            nextStart = tmp;
+            tmp = openEnd;
+            openEnd = nextEnd;
+            nextEnd = tmp;
+            tmp = openRow;
+            openRow = nextRow;
+            nextRow = tmp;
+            open = next;
+        }
+
+        Arrays.fill(dirtyTiles, 0L);
+        if (invalid) {
+            invalid = false;
+            invalidated.set(false);
+        }
+        return regions;
+    }
+
+    private int nextDirtyTile(int tileRow, int fromTile, int tileColumns) {
+        int offset = tileRow * dirtyWordsPerRow;
+        int wordIndex = fromTile >>> WORD_SHIFT;
+        if (wordIndex >= dirtyWordsPerRow)
+            return tileColumns;
+        long word = dirtyTiles[offset + wordIndex] & (-1L << fromTile);
+        while (true) {
+            if (word != 0)
+                return Math.min((wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word), tileColumns);
+            if (++wordIndex >= dirtyWordsPerRow)
+                return tileColumns;
+            word = dirtyTiles[offset + wordIndex];
+        }
+    }
+
+    private boolean isTileDirty(int tileRow, int tileColumn) {
+        return ((dirtyTiles[(tileRow * dirtyWordsPerRow) + (tileColumn >>> WORD_SHIFT)] >>> tileColumn) & 0x1L) != 0;
+    }
+
+    private PixelRegion toRegion(int tileStart, int tileEnd, int tileRowStart, int tileRowEnd) {
+        return new PixelRegion(tileStart << TILE_SHIFT, tileRowStart << TILE_SHIFT, (tileEnd - tileStart) << TILE_SHIFT, (tileRowEnd - tileRowStart) << TILE_SHIFT);
+    }
+
+    /**
+     * Marks the 8x8 tile containing the specified pixel as modified
+     *
+     * @param x
+     *         The x-coordinate of the pixel
+     * @param y
+     *         The y-coordinate of the pixel
+     */
+    private void markDirty(int x, int y) {
+        dirtyTiles[((y >>> TILE_SHIFT) * dirtyWordsPerRow) + (x >>> (TILE_SHIFT + WORD_SHIFT))] |= 1L << (x >>> TILE_SHIFT);
+        markInvalid();
+    }
+
+    /**
+     * Marks every tile intersecting the specified area as modified. The area must be within the buffer bounds.
+     *
+     * @param x
+     *         The x-coordinate of the top-left pixel
+     * @param y
+     *         The y-coordinate of the top-left pixel
+     * @param width
+     *         The width of the area (in pixels)
+     * @param height
+     *         The height of the area (in pixels)
+     */
+    private void markDirty(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0)
+            return;
+        int firstTile = x >>> TILE_SHIFT;
+        int lastTile = (x + width - 1) >>> TILE_SHIFT;
+        int lastRow = (y + height - 1) >>> TILE_SHIFT;
+        for (int ty = y >>> TILE_SHIFT; ty <= lastRow; ty++) {
+            int offset = ty * dirtyWordsPerRow;
+            for (int tx = firstTile; tx <= lastTile; tx++)
+                dirtyTiles[offset + (tx >>> WORD_SHIFT)] |= 1L << tx;
+        }
+        markInvalid();
+    }
+
+    private void markAllDirty() {
+        markDirty(0, 0, bufferWidth, bufferHeight);
+    }
+
+    /**
+     * Publishes the current contents of this buffer as a complete frame. A frame identical to the last published
+     * frame is dropped: it is not handed over to readers and frame listeners are not notified. The dirty regions are
+     * drained on every call and carried over to the published frame (see {@link #getChangedRegions()}). This should
+     * only be called by the thread writing to this buffer.
+     *
+     * @return True if the frame was published, false if it was identical to the last published frame
+     */
+    public boolean publish() {
+        FrameExchange exchange = frames;
+        if (exchange != null) {
+            //untouched since the last publish, no need to hash
+            if (!modified)
+                return false;
+            long hash = contentHash();
+            modified = false;
+            //the hash alone could collide, confirm against the last published frame before dropping this one
+            if (hash == publishedHash && exchange.isPublished(this)) {
+                //nothing differs from the last published frame
+                drainDirtyRegions();
+                return false;
             }
+            publishedHash = hash;
+        } else {
+            frames = exchange = new FrameExchange(bufferWidth, bufferHeight);
+            publishedHash = contentHash();
+            modified = false;
         }
+        PixelBuffer frame = exchange.publish(this, drainDirtyRegions());
+        for (FrameListener listener : frameListeners)
+            listener.onFrame(frame);
+        return true;
     }
 
     /**
-     * Utility method to copy a multi-dimensional buffer
+     * Computes a 64-bit hash of the dimensions and pixel contents of this buffer. Buffers with the same contents
+     * always have the same hash.
+     *
+     * @return The content hash
+     */
+    public long contentHash() {
+        long hash = ((long) bufferWidth << 32) | bufferHeight;
+        for (long word : buffer) {
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+
+    /**
+     * Registers a listener to be notified each time a frame is published
+     *
+     * @param listener
+     *         The {@link FrameListener} to register
+     */
+    public void addFrameListener(FrameListener listener) {
+        frameListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered frame listener
+     *
+     * @param listener
+     *         The {@link FrameListener} to remove
+     */
+    public void removeFrameListener(FrameListener listener) {
+        frameListeners.remove(listener);
+    }
+
+    /**
+     * Returns the latest frame published through {@link #publish()}. The returned buffer is never modified by the
+     * writer and must be treated as read-only. This should only be called by a single reader thread.
+     *
+     * @return The latest published frame or this instance if no frame has been published yet
+     */
+    public PixelBuffer getPublishedFrame() {
+        FrameExchange exchange = frames;
+        return exchange == null ? this : exchange.acquire();
+    }
+
+    /**
+     * Returns the areas that differ between this frame and the frame published before it. Only set on the frames
+     * handed out by {@link #getPublishedFrame()} and passed to {@link FrameListener}s, the first frame published by a
+     * buffer covers the whole buffer. Readers that skip frames must redraw the union of the regions they missed.
+     *
+     * @return The changed regions (in pixels), empty for buffers that are not a published frame
+     */
+    public List<PixelRegion> getChangedRegions() {
+        return changedRegions;
+    }
+
+    void setChangedRegions(List<PixelRegion> changedRegions) {
+        this.changedRegions = changedRegions;
+    }
+
+    /**
+     * @return True if a frame has been published that has not yet been retrieved by {@link #getPublishedFrame()}
+     */
+    public boolean hasPublishedFrame() {
+        FrameExchange exchange = frames;
+        return exchange != null && exchange.hasNewFrame();
+    }
+
+    /**
+     * Creates a new {@link PixelBuffer} with the same dimensions and pixel contents as this instance. The cursor
+     * position and invalidation state are not copied.
+     *
+     * @return A new {@link PixelBuffer} instance
+     */
+    public PixelBuffer copy() {
+        PixelBuffer copy = new PixelBuffer(bufferWidth, bufferHeight, fair);
+        System.arraycopy(buffer, 0, copy.buffer, 0, buffer.length);
+        return copy;
+    }
+
+    /**
+     * Compares the dimensions and pixel contents of this buffer with another buffer. The cursor position and
+     * invalidation state are not compared.
+     *
+     * @param other
+     *         The {@link PixelBuffer} to compare with
+     *
+     * @return True if both buffers have the same dimensions and pixel contents
+     */
+    public boolean contentEquals(PixelBuffer other) {
+        if (this == other)
+            return true;
+        return other != null && bufferWidth == other.bufferWidth && bufferHeight == other.bufferHeight && Arrays.equals(buffer, other.buffer);
+    }
+
+    /**
+     * Copies the overlapping rows of a source word array into the internal buffer. Copied rows are truncated or
+     * zero-padded to the current row length, rows not present in the source are left untouched.
      *
      * @param source
-     *         The source array
-     * @param dest
-     *         The destination array
+     *         The source word array
+     * @param sourceWordsPerRow
+     *         The number of words per row of the source array
+     * @param sourceHeight
+     *         The number of rows of the source array
      */
-    private void copyBuffer(byte[][] source, byte[][] dest) {
-        for (int row = 0; row < dest.length; row++) {
-            if (row > (source.length - 1))
-                return;
-            dest[row] = Arrays.copyOf(source[row], dest[row].length);
+    private void copyRows(long[] source, int sourceWordsPerRow, int sourceHeight) {
+        int rows = Math.min(sourceHeight, bufferHeight);
+        int words = Math.min(sourceWordsPerRow, wordsPerRow);
+        long tailMask = tailMask();
+        for (int row = 0; row < rows; row++) {
+            int offset = row * wordsPerRow;
+            System.arraycopy(source, row * sourceWordsPerRow, buffer, offset, words);
+            Arrays.fill(buffer, offset + words, offset + wordsPerRow, 0L);
+            buffer[offset + wordsPerRow - 1] &= tailMask;
         }
     }
 
+    /**
+     * Copies a range of rows from a source buffer of the same dimensions into this buffer
+     *
+     * @param source
+     *         The source {@link PixelBuffer}
+     * @param y
+     *         The first row to copy
+     * @param rows
+     *         The number of rows to copy
+     */
+    void writeRows(PixelBuffer source, int y, int rows) {
+        if (source.bufferWidth != bufferWidth || source.bufferHeight != bufferHeight)
+            throw new IllegalArgumentException("Source buffer dimensions do not match");
+        System.arraycopy(source.buffer, y * wordsPerRow, buffer, y * wordsPerRow, rows * wordsPerRow);
+        markDirty(0, y, bufferWidth, rows);
+    }
+
     /**
      * Returns the width of the buffer (number of pixels)
      *
      * @return The width of the buffer
      */
     public int getWidth() {
-        return width.get();
+        return bufferWidth;
     }
 
     /**
@@ -338,7 +905,7 @@ public class PixelBuffer {
      * @return The height of the buffer
      */
     public int getHeight() {
-        return height.get();
+        return bufferHeight;
     }
 
     /**
@@ -351,41 +918,176 @@ public class PixelBuffer {
     }
 
     /**
-     * @return the internal buffer of this instance
+     * Returns a copy of the pixel data in the row/byte layout ({@code [y][x / 8]}, least significant bit first).
+     * Changes made to the returned array are not reflected on this buffer.
+     *
+     * @return a copy of the internal buffer of this instance
      */
     public byte[][] getBuffer() {
-        return this.buffer;
+        byte[][] data = new byte[bufferHeight][bytesPerRow];
+        for (int y = 0; y < bufferHeight; y++) {
+            for (int x = 0; x < bytesPerRow; x++)
+                data[y][x] = getByte(x, y);
+        }
+        return data;
+    }
+
+    /**
+     * Writes the pixel data to the target buffer in the row/byte layout ({@code getHeight() * getWidth() / 8} bytes,
+     * least significant bit first), starting at the current position of the target.
+     *
+     * @param target
+     *         The target buffer, must have at least {@code getHeight() * getWidth() / 8} bytes remaining
+     */
+    public void copyTo(ByteBuffer target) {
+        copyTo(target, 0, bufferHeight);
+    }
+
+    /**
+     * Writes a range of rows to the target buffer in the row/byte layout of {@link #copyTo(ByteBuffer)}, starting at
+     * the current position of the target.
+     *
+     * @param target
+     *         The target buffer, must have at least {@code rows * getWidth() / 8} bytes remaining
+     * @param startRow
+     *         The first row to copy
+     * @param rows
+     *         The number of rows to copy
+     */
+    public void copyTo(ByteBuffer target, int startRow, int rows) {
+        if (startRow < 0 || rows < 0 || startRow + rows > bufferHeight)
+            throw new IndexOutOfBoundsException(String.format("Rows are out of bounds. (ACTUAL: y=%d, rows=%d, MAX: y=%d)", startRow, rows, bufferHeight - 1));
+        int fullWords = bytesPerRow >>> 3;
+        boolean littleEndian = target.order() == ByteOrder.LITTLE_ENDIAN;
+        for (int y = startRow; y < startRow + rows; y++) {
+            int offset = y * wordsPerRow;
+            int column = 0;
+            if (littleEndian) {
+                for (int i = 0; i < fullWords; i++, column += 8)
+                    target.putLong(buffer[offset + i]);
+            }
+            for (; column < bytesPerRow; column++)
+                target.put(getByte(column, y));
+        }
+    }
+
+    /**
+     * Reads 8 horizontally adjacent pixels of a row
+     *
+     * @param column
+     *         The byte column of the row (pixel x-coordinate / 8)
+     * @param y
+     *         The y-coordinate of the row
+     *
+     * @return The pixels packed into a byte, least significant bit first
+     */
+    private byte getByte(int column, int y) {
+        return (byte) (buffer[(y * wordsPerRow) + (column >>> 3)] >>> ((column & 0x7) << 3));
     }
 
     /**
-     * Translates the x-coordinate of a pixel into an x-coordinate of the byte buffer
+     * Writes 8 horizontally adjacent pixels of a row
+     *
+     * @param column
+     *         The byte column of the row (pixel x-coordinate / 8)
+     * @param y
+     *         The y-coordinate of the row
+     * @param data
+     *         The pixels packed into a byte, least significant bit first
      *
+     * @return True if any of the pixels have changed
+     */
+    private boolean putByte(int column, int y, byte data) {
+        int index = (y * wordsPerRow) + (column >>> 3);
+        int shift = (column & 0x7) << 3;
+        long word = buffer[index];
+        long updated = (word & ~(0xFFL << shift)) | ((data & 0xFFL) << shift);
+        buffer[index] = updated;
+        return updated != word;
+    }
+
+    /**
+     * Writes up to 64 pixels into a row. The span must be within the row bounds.
+     *
+     * @param rowIndex
+     *         The index of the first word of the row
      * @param x
-     *         The x-coordinate of a pixel
+     *         The x-coordinate of the first pixel
+     * @param bits
+     *         The pixel states, least significant bit first
+     * @param length
+     *         The number of pixels to write (1 to 64)
+     *
+     * @return True if any of the pixels have changed
+     */
+    private boolean putBits(int rowIndex, int x, long bits, int length) {
+        long mask = (length == WORD_BITS) ? -1L : ((1L << length) - 1);
+        bits &= mask;
+        int index = rowIndex + (x >>> WORD_SHIFT);
+        int shift = x & (WORD_BITS - 1);
+        long word = buffer[index];
+        long updated = (word & ~(mask << shift)) | (bits << shift);
+        buffer[index] = updated;
+        long changed = updated ^ word;
+        //remaining bits spill over to the next word
+        if (shift + length > WORD_BITS) {
+            int spill = WORD_BITS - shift;
+            word = buffer[++index];
+            updated = (word & ~(mask >>> spill)) | (bits >>> spill);
+            buffer[index] = updated;
+            changed |= updated ^ word;
+        }
+        return changed != 0;
+    }
+
+    /**
+     * Reads up to 64 bits from a packed byte array (least significant bit first)
+     *
+     * @param data
+     *         The source data
+     * @param rowOffset
+     *         The offset of the first byte of the row
+     * @param bitOffset
+     *         The bit offset from the start of the row
+     * @param length
+     *         The number of bits to read (1 to 64)
      *
-     * @return The byte buffer x-index
+     * @return The bits, with the first bit at the least significant position
      */
-    private int calculateXPos(int x) {
-        return (int) Math.floor((double) x / 8);
+    private static long getBits(byte[] data, int rowOffset, int bitOffset, int length) {
+        int index = rowOffset + (bitOffset >>> 3);
+        int shift = bitOffset & 0x7;
+        //number of bytes spanned by the requested bits
+        int count = (shift + length + 7) >>> 3;
+        long bits = 0;
+        for (int i = 0; i < Math.min(count, 8); i++)
+            bits |= (data[index + i] & 0xFFL) << (i << 3);
+        bits >>>= shift;
+        if (count > 8)
+            bits |= (data[index + 8] & 0xFFL) << (WORD_BITS - shift);
+        return bits;
     }
 
     /**
-     * Checks if the specified indices are out of bounds
+     * @return A mask covering the valid pixel bits of the last word of a row
+     */
+    private long tailMask() {
+        int bits = bufferWidth & (WORD_BITS - 1);
+        return bits == 0 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Checks if the specified indices are within bounds
      *
      * @param x
      *         The x-coordinate of a pixel
      * @param y
      *         The y-coordinate of a pixel
      *
-     * @throws IndexOutOfBoundsException
-     *         when x or y coordinates are out of bounds
+     * @return True if the coordinates are within the buffer dimensions
      */
     private boolean checkBounds(int x, int y) {
-        if (x >= width.get() || y >= height.get()) {
-            //throw new IndexOutOfBoundsException(String.format("X or Y indices are out of bounds. (ACTUAL: x=%d, y=%d, MAX: x=%d, y=%d)", x, y, width.get() - 1, height.get() - 1));
-            return false;
-        }
-        return true;
+        return x >= 0 && y >= 0 && x < bufferWidth && y < bufferHeight;
     }
 
     /**
@@ -412,17 +1114,30 @@ public class PixelBuffer {
      * @param height
      *         The display height (in pixels)
      *
-     * @return A multi-dimensional array
+     * @return A word array large enough to hold all rows
      */
-    private byte[][] allocate(int width, int height) {
+    private long[] allocate(int width, int height) {
         checkDimensions(width, height);
-        //e.g. if the display width is 128, then our buffer width would be 16 bytes (width / 8)
-        int bufferWidth = width / 8;
-        return new byte[height][bufferWidth];
+        //e.g. if the display width is 128, then each row would be 2 words (128 / 64)
+        int rowWords = (width + WORD_BITS - 1) >>> WORD_SHIFT;
+        return new long[rowWords * height];
+    }
+
+    private void updateDimensions(int width, int height) {
+        this.bufferWidth = width;
+        this.bufferHeight = height;
+        this.bytesPerRow = width / 8;
+        this.wordsPerRow = (width + WORD_BITS - 1) >>> WORD_SHIFT;
+        this.dirtyWordsPerRow = ((width >>> TILE_SHIFT) + WORD_BITS - 1) >>> WORD_SHIFT;
+        this.dirtyTiles = new long[dirtyWordsPerRow * (height >>> TILE_SHIFT)];
+        this.width.set(width);
+        this.height.set(height);
     }
 
     private void markInvalid() {
-        if (!invalidated.get()) {
+        modified = true;
+        if (!invalid) {
+            invalid = true;
             invalidated.set(true);
             invalidated();
         }
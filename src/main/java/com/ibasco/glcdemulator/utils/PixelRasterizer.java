@@ -0,0 +1,441 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PixelRasterizer.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import com.ibasco.glcdemulator.enums.PixelShape;
+
+import java.util.Arrays;
+
+/**
+ * Rasterizes the pixels of a {@link PixelBuffer} into an ARGB (non pre-multiplied) integer array, the way the dot
+ * matrix screen is drawn: each LCD pixel is a square or circle of {@code pixelSize} separated by {@code spacing} and
+ * surrounded by a {@code margin}, drawn over the backlight.
+ *
+ * <p>Pixel edges are snapped to whole image pixels, so a frame can be produced with plain array copies and then
+ * handed over to the screen in a single operation. Circles are anti-aliased using a coverage mask which is computed
+ * once per pixel size.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class PixelRasterizer {
+
+    private double pixelSize = 5.0d;
+
+    private double spacing = 0.0d;
+
+    private double margin = 15.0d;
+
+    private PixelShape pixelShape = PixelShape.RECTANGLE;
+
+    private int activeColor = 0xFF000000;
+
+    private int inactiveColor = 0x0F000000;
+
+    private int backlightTopColor = 0xFFA5F242;
+
+    private int backlightBottomColor = 0xFFA5F242;
+
+    private int displayWidth;
+
+    private int displayHeight;
+
+    private int width;
+
+    private int height;
+
+    private int[] pixels = new int[0];
+
+    //the image produced by the last call to rasterize (either the pixel array or a cached image)
+    private int[] result = pixels;
+
+    private RasterCache cache;
+
+    //identifies the settings the cached layers have been rendered with
+    private long settingsKey;
+
+    //start/end (exclusive) image coordinates of each LCD column and row
+    private int[] columnStart, columnEnd, rowStart, rowEnd;
+
+    //coverage of a circular pixel (0 to 255), indexed by the width and height of the cell
+    private int[][][] masks;
+
+    //the backlight with all pixels drawn inactive
+    private int[] background = new int[0];
+
+    //pre-blended rows of an active pixel, indexed by (image row * spriteStride) + cell width
+    private int[][] sprites;
+
+    private int spriteStride;
+
+    private long[] row = new long[0];
+
+    private boolean geometryValid;
+
+    private boolean layersValid;
+
+    /**
+     * Rasterizes the frame into the internal pixel array. The dimensions of the image are derived from the frame and
+     * the current geometry settings.
+     *
+     * <p>The backlight and the inactive pixels are rendered once into a cached background layer and the active pixels
+     * into pre-blended sprites. Both are only rebuilt when a color, the geometry or the shape changes, so a frame is
+     * produced by copying the background and stamping the lit pixels on top of it. If a {@link RasterCache} has been
+     * set, frames which have already been rasterized with the same settings are returned from the cache instead.</p>
+     *
+     * @param frame
+     *         The frame to rasterize
+     *
+     * @return The ARGB pixels of the image, {@link #getWidth()} x {@link #getHeight()}. The array is re-used by
+     * subsequent calls and must not be modified.
+     */
+    public int[] rasterize(PixelBuffer frame) {
+        if (frame.getWidth() != displayWidth || frame.getHeight() != displayHeight) {
+            displayWidth = frame.getWidth();
+            displayHeight = frame.getHeight();
+            geometryValid = false;
+        }
+        if (!geometryValid)
+            updateGeometry();
+        if (!layersValid)
+            updateLayers();
+
+        RasterCache cache = this.cache;
+        if (cache != null) {
+            int[] cached = cache.get(frame, settingsKey);
+            if (cached != null)
+                return result = cached;
+        }
+
+        int[] pixels = this.pixels;
+        System.arraycopy(background, 0, pixels, 0, pixels.length);
+        int words = (displayWidth + 63) >>> 6;
+        for (int lcdRow = 0; lcdRow < displayHeight; lcdRow++) {
+            int top = rowStart[lcdRow], bottom = rowEnd[lcdRow];
+            if (top == bottom)
+                continue;
+            frame.readRow(lcdRow, row);
+            for (int word = 0; word < words; word++) {
+                //only visit the lit pixels
+                for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+                    int x = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    if (x >= displayWidth)
+                        break;
+                    int start = columnStart[x];
+                    int cellWidth = columnEnd[x] - start;
+                    for (int y = top, offset = (top * width) + start; y < bottom; y++, offset += width)
+                        System.arraycopy(sprites[(y * spriteStride) + cellWidth], 0, pixels, offset, cellWidth);
+                }
+            }
+        }
+        if (cache != null)
+            cache.put(frame, settingsKey, pixels);
+        return result = pixels;
+    }
+
+    /**
+     * Renders the background layer (backlight and inactive pixels) and the active pixel sprites
+     */
+    private void updateLayers() {
+        settingsKey = computeSettingsKey();
+        //screens sharing a cache with the same settings (e.g. a display wall) re-use each others layers
+        RasterCache cache = this.cache;
+        if (cache != null) {
+            Layers shared = cache.getLayers(settingsKey);
+            if (shared != null) {
+                background = shared.background;
+                sprites = shared.sprites;
+                layersValid = true;
+                return;
+            }
+        }
+        //always a new array, the previous one may be shared
+        background = new int[pixels.length];
+        sprites = new int[height * spriteStride][];
+        int lcdRow = 0;
+        for (int y = 0; y < height; y++) {
+            int backlight = backlightColor(y);
+            int offset = y * width;
+            Arrays.fill(background, offset, offset + width, backlight);
+
+            //skip the margins and the spacing between rows
+            while (lcdRow < displayHeight && y >= rowEnd[lcdRow])
+                lcdRow++;
+            if (lcdRow >= displayHeight || y < rowStart[lcdRow])
+                continue;
+
+            int cellHeight = rowEnd[lcdRow] - rowStart[lcdRow];
+            int maskRow = y - rowStart[lcdRow];
+            //pixel rows only depend on the width of the cell, so each variant is blended once per image row
+            int[][] inactiveSpans = new int[spriteStride][];
+            for (int x = 0; x < displayWidth; x++) {
+                int start = columnStart[x];
+                int cellWidth = columnEnd[x] - start;
+                if (inactiveSpans[cellWidth] == null) {
+                    int[] mask = pixelShape == PixelShape.CIRCLE ? mask(cellWidth, cellHeight) : null;
+                    int[] active = new int[cellWidth];
+                    int[] inactive = new int[cellWidth];
+                    for (int i = 0; i < cellWidth; i++) {
+                        int coverage = mask != null ? mask[(maskRow * cellWidth) + i] : 255;
+                        active[i] = blend(activeColor, backlight, coverage);
+                        inactive[i] = blend(inactiveColor, backlight, coverage);
+                    }
+                    sprites[(y * spriteStride) + cellWidth] = active;
+                    inactiveSpans[cellWidth] = inactive;
+                }
+                System.arraycopy(inactiveSpans[cellWidth], 0, background, offset + start, cellWidth);
+            }
+        }
+        if (cache != null)
+            cache.putLayers(settingsKey, new Layers(background, sprites));
+        layersValid = true;
+    }
+
+    private long computeSettingsKey() {
+        long[] values = {displayWidth, displayHeight, Double.doubleToLongBits(pixelSize), Double.doubleToLongBits(spacing), Double.doubleToLongBits(margin), pixelShape.ordinal(), activeColor, inactiveColor, backlightTopColor, backlightBottomColor};
+        long key = 0;
+        for (long value : values) {
+            key = (key ^ value) * 0x9E3779B97F4A7C15L;
+            key ^= key >>> 29;
+        }
+        return key;
+    }
+
+    private int[] mask(int cellWidth, int cellHeight) {
+        int[] mask = masks[cellWidth][cellHeight];
+        if (mask == null) {
+            mask = new int[cellWidth * cellHeight];
+            double radius = pixelSize / 2.0d;
+            double centerX = cellWidth / 2.0d, centerY = cellHeight / 2.0d;
+            for (int y = 0; y < cellHeight; y++) {
+                for (int x = 0; x < cellWidth; x++) {
+                    double distance = Math.hypot(x + 0.5d - centerX, y + 0.5d - centerY);
+                    double coverage = Math.max(0.0d, Math.min(1.0d, radius - distance + 0.5d));
+                    mask[(y * cellWidth) + x] = (int) Math.round(coverage * 255);
+                }
+            }
+            masks[cellWidth][cellHeight] = mask;
+        }
+        return mask;
+    }
+
+    private void updateGeometry() {
+        width = computeSize(displayWidth);
+        height = computeSize(displayHeight);
+        if (pixels.length != width * height)
+            pixels = new int[width * height];
+        columnStart = new int[displayWidth];
+        columnEnd = new int[displayWidth];
+        rowStart = new int[displayHeight];
+        rowEnd = new int[displayHeight];
+        computeCells(columnStart, columnEnd, width);
+        computeCells(rowStart, rowEnd, height);
+        //snapped cells are at most one pixel larger than the pixel size
+        int maxCellSize = (int) Math.ceil(pixelSize) + 1;
+        masks = new int[maxCellSize + 1][maxCellSize + 1][];
+        spriteStride = maxCellSize + 1;
+        int words = (displayWidth + 63) >>> 6;
+        if (row.length < words)
+            row = new long[words];
+        geometryValid = true;
+        layersValid = false;
+    }
+
+    private void computeCells(int[] start, int[] end, int limit) {
+        double position = margin + spacing;
+        for (int i = 0; i < start.length; i++, position += pixelSize + spacing) {
+            start[i] = Math.min(limit, (int) Math.round(position));
+            end[i] = Math.min(limit, Math.max(start[i], (int) Math.round(position + pixelSize)));
+        }
+    }
+
+    private int computeSize(int pixels) {
+        return (int) Math.ceil((pixels * pixelSize) + (pixels * spacing) + spacing + (margin * 2));
+    }
+
+    private int backlightColor(int y) {
+        if (backlightTopColor == backlightBottomColor || height < 2)
+            return backlightTopColor;
+        return interpolate(backlightTopColor, backlightBottomColor, (y * 255) / (height - 1));
+    }
+
+    /**
+     * Composites a color over an opaque or translucent background (source over)
+     *
+     * @param color
+     *         The source color
+     * @param background
+     *         The destination color
+     * @param coverage
+     *         The coverage of the source (0 to 255), multiplied with the alpha of the source color
+     *
+     * @return The resulting ARGB color
+     */
+    static int blend(int color, int background, int coverage) {
+        int sa = ((color >>> 24) * coverage) / 255;
+        int da = background >>> 24;
+        int oa = sa + ((da * (255 - sa)) / 255);
+        if (oa == 0)
+            return 0;
+        int dw = (da * (255 - sa)) / 255;
+        int r = ((((color >> 16) & 0xFF) * sa) + (((background >> 16) & 0xFF) * dw)) / oa;
+        int g = ((((color >> 8) & 0xFF) * sa) + (((background >> 8) & 0xFF) * dw)) / oa;
+        int b = (((color & 0xFF) * sa) + ((background & 0xFF) * dw)) / oa;
+        return (oa << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static int interpolate(int from, int to, int fraction) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int a = (from >>> shift) & 0xFF, b = (to >>> shift) & 0xFF;
+            result |= (a + (((b - a) * fraction) / 255)) << shift;
+        }
+        return result;
+    }
+
+    /**
+     * @return The pixels of the last rasterized image, {@link #getWidth()} x {@link #getHeight()}
+     */
+    public int[] getPixels() {
+        return result;
+    }
+
+    public RasterCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @param cache
+     *         The cache to look up and store rasterized frames in, null to disable caching
+     */
+    public void setCache(RasterCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * The pre-rendered layers for a combination of settings and display dimensions. Never modified once created, so
+     * they can be shared between rasterizers running on different threads.
+     */
+    static final class Layers {
+
+        private final int[] background;
+
+        private final int[][] sprites;
+
+        Layers(int[] background, int[][] sprites) {
+            this.background = background;
+            this.sprites = sprites;
+        }
+    }
+
+    /**
+     * @return The width of the rasterized image
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the rasterized image
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public double getPixelSize() {
+        return pixelSize;
+    }
+
+    public void setPixelSize(double pixelSize) {
+        if (this.pixelSize != pixelSize)
+            geometryValid = false;
+        this.pixelSize = pixelSize;
+    }
+
+    public double getSpacing() {
+        return spacing;
+    }
+
+    public void setSpacing(double spacing) {
+        if (this.spacing != spacing)
+            geometryValid = false;
+        this.spacing = spacing;
+    }
+
+    public double getMargin() {
+        return margin;
+    }
+
+    public void setMargin(double margin) {
+        if (this.margin != margin)
+            geometryValid = false;
+        this.margin = margin;
+    }
+
+    public PixelShape getPixelShape() {
+        return pixelShape;
+    }
+
+    public void setPixelShape(PixelShape pixelShape) {
+        if (this.pixelShape != pixelShape)
+            layersValid = false;
+        this.pixelShape = pixelShape;
+    }
+
+    public int getActiveColor() {
+        return activeColor;
+    }
+
+    public void setActiveColor(int activeColor) {
+        if (this.activeColor != activeColor)
+            layersValid = false;
+        this.activeColor = activeColor;
+    }
+
+    public int getInactiveColor() {
+        return inactiveColor;
+    }
+
+    public void setInactiveColor(int inactiveColor) {
+        if (this.inactiveColor != inactiveColor)
+            layersValid = false;
+        this.inactiveColor = inactiveColor;
+    }
+
+    /**
+     * Sets the backlight color. If the top and bottom colors differ, the backlight is drawn as a vertical gradient.
+     *
+     * @param top
+     *         The ARGB color at the top of the screen
+     * @param bottom
+     *         The ARGB color at the bottom of the screen
+     */
+    public void setBacklightColor(int top, int bottom) {
+        if (this.backlightTopColor != top || this.backlightBottomColor != bottom)
+            layersValid = false;
+        this.backlightTopColor = top;
+        this.backlightBottomColor = bottom;
+    }
+}
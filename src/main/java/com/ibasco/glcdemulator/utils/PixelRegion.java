@@ -0,0 +1,120 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PixelRegion.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+/**
+ * An immutable rectangular area of a {@link PixelBuffer} (in pixels)
+ *
+ * @author Rafael Ibasco
+ */
+public final class PixelRegion {
+
+    private final int x;
+
+    private final int y;
+
+    private final int width;
+
+    private final int height;
+
+    public PixelRegion(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @return The x-coordinate of the top-left pixel of the region
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return The y-coordinate of the top-left pixel of the region
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return The width of the region (in pixels)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the region (in pixels)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if a pixel is within this region
+     *
+     * @param x
+     *         The x-coordinate of the pixel
+     * @param y
+     *         The y-coordinate of the pixel
+     *
+     * @return True if the pixel lies within this region
+     */
+    public boolean contains(int x, int y) {
+        return x >= this.x && y >= this.y && x < (this.x + width) && y < (this.y + height);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PixelRegion))
+            return false;
+        PixelRegion that = (PixelRegion) o;
+        return x == that.x && y == that.y && width == that.width && height == that.height;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = x;
+        result = 31 * result + y;
+        result = 31 * result + width;
+        return 31 * result + height;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PixelRegion{");
+        sb.append("x=").append(x);
+        sb.append(", y=").append(y);
+        sb.append(", width=").append(width);
+        sb.append(", height=").append(height);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,239 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: RasterCache.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of rasterized frames (see {@link PixelRasterizer}). Entries are keyed by the
+ * contents of the frame and the display settings the image was rasterized with, so screens which cycle through a small
+ * set of frames (menus, animations) only rasterize each of them twice. The cache is bounded by the memory used by the
+ * cached images and frames.
+ *
+ * <p>A frame is only admitted the second time it is offered. Live data rarely repeats a frame, so most frames are seen
+ * once and never copied into the cache, which would otherwise cost a copy of the frame and its image per frame and
+ * flush the frames worth keeping.</p>
+ *
+ * <p>The cache also keeps the pre-rendered layers of the rasterizers using it, so screens showing different frames with
+ * the same settings (e.g. the screens of a display wall) share their sprites instead of each rendering their own.</p>
+ *
+ * <p>Cached images are never modified once they have been added, so they can be handed out to other threads without
+ * copying. Instances of this class are thread-safe.</p>
+ *
+ * @author Rafael Ibasco
+ */
+public class RasterCache {
+
+    //layers are only looked up when the settings of a rasterizer change, a handful of entries is plenty
+    private static final int MAX_LAYERS = 32;
+
+    //number of recently offered frames remembered for admission, must be a power of two
+    private static final int SEEN_SLOTS = 1024;
+
+    private final long capacity;
+
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<Long, PixelRasterizer.Layers> layers = new LinkedHashMap<Long, PixelRasterizer.Layers>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PixelRasterizer.Layers> eldest) {
+            return size() > MAX_LAYERS;
+        }
+    };
+
+    //hashes of recently offered frames, indexed by the low bits of the hash
+    private final long[] seen = new long[SEEN_SLOTS];
+
+    private long memoryUsage;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Create a new cache
+     *
+     * @param capacity
+     *         The maximum number of bytes used by the cached entries
+     */
+    public RasterCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Looks up the image of a frame
+     *
+     * @param frame
+     *         The frame to look up
+     * @param settings
+     *         The key of the settings the image has been rasterized with
+     *
+     * @return The cached ARGB pixels (must not be modified) or null if the frame has not been cached
+     */
+    public synchronized int[] get(PixelBuffer frame, long settings) {
+        int[] pixels = entries.get(new Key(frame, settings));
+        if (pixels != null)
+            hits++;
+        else
+            misses++;
+        return pixels;
+    }
+
+    /**
+     * Adds a copy of the frame and its rasterized image to the cache, evicting the least recently used entries if
+     * needed. The first time a frame is offered only its hash is remembered, it is copied into the cache if it is
+     * offered again. Images larger than the capacity of the cache are ignored.
+     *
+     * @param frame
+     *         The frame which has been rasterized
+     * @param settings
+     *         The key of the settings the image has been rasterized with
+     * @param pixels
+     *         The ARGB pixels of the image
+     */
+    public synchronized void put(PixelBuffer frame, long settings, int[] pixels) {
+        long size = sizeOf(frame, pixels);
+        if (size > capacity)
+            return;
+        long hash = hash(frame, settings);
+        int slot = (int) hash & (SEEN_SLOTS - 1);
+        if (seen[slot] != hash) {
+            seen[slot] = hash;
+            return;
+        }
+        Key key = new Key(frame.copy(), settings);
+        int[] previous = entries.put(key, pixels.clone());
+        if (previous != null)
+            memoryUsage -= sizeOf(frame, previous);
+        memoryUsage += size;
+        Iterator<Map.Entry<Key, int[]>> it = entries.entrySet().iterator();
+        while (memoryUsage > capacity && it.hasNext()) {
+            Map.Entry<Key, int[]> eldest = it.next();
+            memoryUsage -= sizeOf(eldest.getKey().frame, eldest.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all entries and resets the statistics
+     */
+    public synchronized void clear() {
+        entries.clear();
+        layers.clear();
+        Arrays.fill(seen, 0L);
+        memoryUsage = 0;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return The number of cached frames
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of bytes currently used by the cached entries
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return The maximum number of bytes used by the cached entries
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The ratio of lookups which have been served from the cache (0.0 to 1.0)
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0d : (double) hits / total;
+    }
+
+    synchronized PixelRasterizer.Layers getLayers(long settings) {
+        return layers.get(settings);
+    }
+
+    synchronized void putLayers(long settings, PixelRasterizer.Layers value) {
+        layers.put(settings, value);
+    }
+
+    private static long hash(PixelBuffer frame, long settings) {
+        long hash = (frame.contentHash() ^ settings) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static long sizeOf(PixelBuffer frame, int[] pixels) {
+        return ((long) pixels.length * Integer.BYTES) + (((long) frame.getWidth() * frame.getHeight()) / Byte.SIZE);
+    }
+
+    private static final class Key {
+
+        private final PixelBuffer frame;
+
+        private final long settings;
+
+        private final int hash;
+
+        private Key(PixelBuffer frame, long settings) {
+            this.frame = frame;
+            this.settings = settings;
+            this.hash = (int) hash(frame, settings);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key that = (Key) o;
+            //the frames are compared as well, the hash alone could collide
+            return settings == that.settings && hash == that.hash && frame.contentEquals(that.frame);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: RenderSchedulerTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.controls;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class RenderSchedulerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private TestScheduler scheduler;
+
+    //index of each screen rendered, in order
+    private List<Integer> rendered;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new TestScheduler();
+        scheduler.setBudget(8, TimeUnit.MILLISECONDS);
+        rendered = new ArrayList<>();
+    }
+
+    @Test
+    @DisplayName("Every screen is rendered once per pulse while within the budget")
+    void withinBudget() {
+        screens(1, 1, 1);
+        scheduler.pulse(0);
+        scheduler.pulse(1);
+        assertEquals(Arrays.asList(0, 1, 2, 0, 1, 2), rendered);
+    }
+
+    @Test
+    @DisplayName("A pulse stops once the budget is used up and the next pulse continues with the remaining screens")
+    void budget() {
+        screens(3, 3, 3, 3);
+        scheduler.pulse(0);
+        //6 ms after two screens, the third one reaches the budget
+        assertEquals(Arrays.asList(0, 1, 2), rendered);
+        scheduler.pulse(1);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 0, 1), rendered);
+
+        //all screens are rendered equally often
+        for (int i = 2; i < 4; i++)
+            scheduler.pulse(i);
+        int[] counts = new int[4];
+        for (int index : rendered)
+            counts[index]++;
+        assertArrayEquals(new int[] {3, 3, 3, 3}, counts);
+    }
+
+    @Test
+    @DisplayName("A screen exceeding the budget on its own does not starve the others")
+    void fairness() {
+        screens(20, 1, 1, 1);
+        scheduler.pulse(0);
+        assertEquals(Arrays.asList(0), rendered);
+        scheduler.pulse(1);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 0), rendered);
+        scheduler.pulse(2);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 0, 1, 2, 3, 0), rendered);
+    }
+
+    @Test
+    @DisplayName("The timer runs while screens are registered and removing a screen keeps the round-robin order")
+    void addRemove() {
+        assertFalse(scheduler.isRunning());
+        List<RenderScheduler.Target> targets = screens(10, 10, 10);
+        assertTrue(scheduler.isRunning());
+        assertTrue(scheduler.timerRunning);
+        assertEquals(3, scheduler.getScreenCount());
+
+        //a screen added twice is only driven once
+        scheduler.add(targets.get(0));
+        assertEquals(3, scheduler.getScreenCount());
+
+        scheduler.pulse(0);
+        assertEquals(Arrays.asList(0), rendered);
+        scheduler.remove(targets.get(0));
+        scheduler.pulse(1);
+        assertEquals(Arrays.asList(0, 1), rendered);
+
+        scheduler.remove(targets.get(1));
+        scheduler.remove(targets.get(2));
+        assertFalse(scheduler.isRunning());
+        assertFalse(scheduler.timerRunning);
+        scheduler.pulse(2);
+        assertEquals(2, rendered.size());
+    }
+
+    @Test
+    @DisplayName("The budget must be positive")
+    void invalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler.setBudget(0, TimeUnit.MILLISECONDS));
+        scheduler.setBudget(2, TimeUnit.MILLISECONDS);
+        assertEquals(2 * MS, scheduler.getBudget());
+    }
+
+    /**
+     * Registers screens which take the given time (in milliseconds) to render
+     */
+    private List<RenderScheduler.Target> screens(long... costs) {
+        List<RenderScheduler.Target> targets = new ArrayList<>();
+        for (int i = 0; i < costs.length; i++) {
+            int index = i;
+            long cost = costs[i] * MS;
+            RenderScheduler.Target target = now -> {
+                rendered.add(index);
+                scheduler.time += cost;
+                return true;
+            };
+            targets.add(target);
+            scheduler.add(target);
+        }
+        return targets;
+    }
+
+    /**
+     * Scheduler with a manual clock and without an animation timer
+     */
+    private static class TestScheduler extends RenderScheduler {
+
+        private long time;
+
+        private boolean timerRunning;
+
+        @Override
+        void startTimer() {
+            timerRunning = true;
+        }
+
+        @Override
+        void stopTimer() {
+            timerRunning = false;
+        }
+
+        @Override
+        long nanoTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: GlcdEmulatorSessionTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import com.ibasco.ucgdisplay.drivers.glcd.Glcd;
+import com.ibasco.ucgdisplay.drivers.glcd.enums.GlcdBusInterface;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class GlcdEmulatorSessionTest {
+
+    @Test
+    @DisplayName("Interleaved ST7920 sessions keep their own addressing")
+    void interleavedSessionsAreIsolated() {
+        GlcdEmulatorSession first = new GlcdEmulatorSession(Glcd.ST7920.D_128x64, GlcdBusInterface.PARALLEL_8080);
+        GlcdEmulatorSession second = new GlcdEmulatorSession(Glcd.ST7920.D_128x64, GlcdBusInterface.PARALLEL_8080);
+
+        //vertical addresses
+        instruction(first, 0x80 | 5);
+        instruction(second, 0x80 | 10);
+        //horizontal addresses
+        instruction(first, 0x80 | 2);
+        instruction(second, 0x80 | 3);
+
+        data(first, 0xFF, 0xFF);
+        data(second, 0xFF, 0xFF);
+
+        for (int x = 0; x < 128; x++) {
+            assertEquals(x >= 32 && x < 48 ? 1 : 0, first.getBuffer().read(x, 5), "first x = " + x);
+            assertEquals(x >= 48 && x < 64 ? 1 : 0, second.getBuffer().read(x, 10), "second x = " + x);
+            assertEquals(0, first.getBuffer().read(x, 10));
+            assertEquals(0, second.getBuffer().read(x, 5));
+        }
+        assertEquals(4, first.getTotalBytes());
+        assertEquals(4, second.getTotalBytes());
+    }
+
+    @Test
+    @DisplayName("Publishing completes a frame and resets the frame byte count")
+    void publishCountsFrames() {
+        GlcdEmulatorSession session = new GlcdEmulatorSession(Glcd.ST7920.D_128x64, GlcdBusInterface.PARALLEL_8080);
+        instruction(session, 0x80);
+        instruction(session, 0x80);
+        data(session, 0x80, 0x00);
+
+        assertTrue(session.publish());
+        assertEquals(1, session.getTotalFrames());
+        assertEquals(4, session.getStats().getFrameSize());
+        assertEquals(0, session.getStats().getBytesPerFrame().get());
+
+        //unchanged contents
+        assertFalse(session.publish());
+        assertEquals(1, session.getStats().getDuplicateFrames());
+    }
+
+    private static void instruction(GlcdEmulatorSession session, int value) {
+        session.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0));
+        session.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+
+    private static void data(GlcdEmulatorSession session, int... values) {
+        session.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1));
+        for (int value : values)
+            session.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+}
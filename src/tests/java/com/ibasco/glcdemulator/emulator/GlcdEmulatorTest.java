@@ -0,0 +1,68 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: GlcdEmulatorTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class GlcdEmulatorTest {
+
+    /**
+     * An emulator which only implements the event based interface
+     */
+    private static class EventEmulator extends GlcdEmulatorBase {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onByteEvent(U8g2ByteEvent event) {
+            events.add(event.getMessage() + ":" + event.getValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Runs are adapted to byte events for emulators without a native implementation")
+    void defaultAdapter() {
+        EventEmulator emulator = new EventEmulator();
+        byte[] data = {0x10, (byte) 0xB0, (byte) 0xFF, 0x01};
+        emulator.onCommand(data, 0, 2);
+        emulator.onData(data, 2, 2);
+
+        List<String> expected = new ArrayList<>();
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SET_DC + ":0");
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SEND + ":16");
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SEND + ":176");
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SET_DC + ":1");
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SEND + ":255");
+        expected.add(U8g2Message.U8X8_MSG_BYTE_SEND + ":1");
+        assertEquals(expected, emulator.events);
+    }
+}
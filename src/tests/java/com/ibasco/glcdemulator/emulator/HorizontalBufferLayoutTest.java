@@ -28,12 +28,17 @@ package com.ibasco.glcdemulator.emulator;
 import com.ibasco.glcdemulator.utils.PixelBuffer;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 @ExtendWith(MockitoExtension.class)
 class HorizontalBufferLayoutTest {
 
@@ -65,4 +70,45 @@ class HorizontalBufferLayoutTest {
             }
         }
     }
+
+    @Test
+    void processBuffer() {
+        //more than a frame, starting at an unaligned position
+        byte[] data = RandomUtils.nextBytes(1500);
+        PixelBuffer expected = new PixelBuffer(128, 64);
+        HorizontalBufferLayout expectedLayout = new HorizontalBufferLayout();
+        expectedLayout.setBuffer(expected);
+        expectedLayout.processByte((byte) 0x81);
+        for (byte d : data)
+            expectedLayout.processByte(d);
+
+        layout.processByte((byte) 0x81);
+        layout.processBuffer(data);
+        assertTrue(expected.contentEquals(buffer));
+        assertEquals(expected.position(), buffer.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        layout.processBuffer(direct);
+        for (byte d : data)
+            expectedLayout.processByte(d);
+        assertTrue(expected.contentEquals(buffer));
+        assertEquals(0, direct.remaining());
+    }
+
+    @Test
+    @DisplayName("Incremental mode leaves publishing complete frames to the caller")
+    void incremental() {
+        //GlcdBufferProcessor enables incremental mode on every layout it creates
+        layout.setIncremental(true);
+        assertFalse(layout.isSelfPublishing());
+
+        byte[] frame = new byte[buffer.size()];
+        frame[0] = (byte) 0x80;
+        layout.processBuffer(frame);
+        assertFalse(buffer.hasPublishedFrame());
+        buffer.publish();
+        assertTrue(buffer.hasPublishedFrame());
+        assertEquals(1, buffer.getPublishedFrame().read(0, 0));
+    }
 }
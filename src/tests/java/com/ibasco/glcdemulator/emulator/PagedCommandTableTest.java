@@ -0,0 +1,75 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PagedCommandTableTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import static com.ibasco.glcdemulator.emulator.PagedCommandTable.Effect.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PagedCommandTableTest {
+
+    private final PagedCommandTable table = new PagedCommandTable()
+            .command(0x00, 0xF0, COLUMN_LOW)
+            .command(0xB0, 0xF8, PAGE)
+            .command(0xB7, 2)
+            .command(0x21, 0xFF, 2, COLUMN_RANGE);
+
+    @Test
+    @DisplayName("Commands are decoded with their operand and argument count")
+    void decode() {
+        assertEquals(COLUMN_LOW, table.getEffect(0x0A));
+        assertEquals(0x0A, table.getOperand(0x0A));
+        assertEquals(0, table.getArgumentCount(0x0A));
+        assertEquals(PAGE, table.getEffect(0xB5));
+        assertEquals(5, table.getOperand(0xB5));
+        assertEquals(COLUMN_RANGE, table.getEffect(0x21));
+        assertEquals(0, table.getOperand(0x21));
+        assertEquals(2, table.getArgumentCount(0x21));
+    }
+
+    @Test
+    @DisplayName("The first matching declaration wins")
+    void firstDeclarationWins() {
+        assertEquals(PAGE, table.getEffect(0xB7));
+        assertEquals(0, table.getArgumentCount(0xB7));
+    }
+
+    @Test
+    @DisplayName("Undeclared commands are ignored")
+    void undeclared() {
+        assertEquals(NONE, table.getEffect(0x10));
+        assertEquals(0, table.getArgumentCount(0x10));
+    }
+
+    @Test
+    @DisplayName("Invalid declarations are rejected")
+    void invalidDeclarations() {
+        assertThrows(IllegalArgumentException.class, () -> table.command(0x11, 0xF0, COLUMN_HIGH));
+        assertThrows(IllegalArgumentException.class, () -> table.command(0x30, PagedCommandTable.MAX_ARGUMENTS + 1));
+        assertThrows(IllegalArgumentException.class, () -> table.command(0x30, 0xFF, null));
+    }
+}
@@ -0,0 +1,145 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: TileBufferLayoutTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class TileBufferLayoutTest {
+
+    private TileBufferLayout layout;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        layout = new TileBufferLayout();
+        buffer = new PixelBuffer(128, 64);
+        layout.setBuffer(buffer);
+        layout.initialize();
+    }
+
+    @Test
+    @DisplayName("Only the addressed tiles are written")
+    void processByte() {
+        byte[] tiles = new byte[3 * 8];
+        new Random(1).nextBytes(tiles);
+        for (byte d : record(2, 5, tiles))
+            layout.processByte(d);
+        assertFalse(layout.isPending());
+        assertTiles(2, 5, tiles);
+        //everything outside of the updated area is untouched
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 128; x++) {
+                if (y / 8 != 5 || x < 16 || x >= 40)
+                    assertEquals(0, buffer.read(x, y));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk processing matches byte-by-byte processing")
+    void processBuffer() {
+        byte[] tiles = new byte[16 * 8];
+        new Random(2).nextBytes(tiles);
+        byte[] data = record(0, 7, tiles);
+        //split the record at an unaligned position to exercise the partial tile handling
+        byte[] head = new byte[13];
+        byte[] tail = new byte[data.length - head.length];
+        System.arraycopy(data, 0, head, 0, head.length);
+        System.arraycopy(data, head.length, tail, 0, tail.length);
+        layout.processBuffer(head);
+        assertTrue(layout.isPending());
+        layout.processBuffer(tail);
+        assertFalse(layout.isPending());
+        assertTiles(0, 7, tiles);
+    }
+
+    @Test
+    @DisplayName("Frames are published at the end of an update")
+    void publish() {
+        layout.processBuffer(record(0, 0, new byte[] {0x1, 0, 0, 0, 0, 0, 0, 0}));
+        assertFalse(buffer.hasPublishedFrame());
+        layout.processBuffer(new byte[] {0, 0, 0});
+        assertTrue(buffer.hasPublishedFrame());
+        assertEquals(1, buffer.getPublishedFrame().read(0, 0));
+
+        layout.setIncremental(true);
+        layout.processBuffer(record(1, 0, new byte[] {0x1, 0, 0, 0, 0, 0, 0, 0}));
+        assertTrue(buffer.hasPublishedFrame());
+        assertEquals(1, buffer.getPublishedFrame().read(8, 0));
+    }
+
+    @Test
+    @DisplayName("Updates which do not change the display are reported as duplicate frames")
+    void duplicateFrames() {
+        byte[] update = record(0, 0, new byte[] {0x1, 0, 0, 0, 0, 0, 0, 0});
+        layout.processBuffer(update);
+        layout.processBuffer(new byte[] {0, 0, 0});
+        assertEquals(0, layout.pollDuplicateFrames());
+
+        layout.processBuffer(update);
+        layout.processBuffer(new byte[] {0, 0, 0});
+        layout.processBuffer(new byte[] {0, 0, 0});
+        assertEquals(2, layout.pollDuplicateFrames());
+        assertEquals(0, layout.pollDuplicateFrames());
+    }
+
+    @Test
+    @DisplayName("Tiles outside of the display are ignored")
+    void clipping() {
+        byte[] tiles = new byte[4 * 8];
+        new Random(3).nextBytes(tiles);
+        layout.updateTiles(14, 0, 4, tiles, 0);
+        layout.updateTiles(0, 8, 1, tiles, 0);
+        byte[] visible = new byte[2 * 8];
+        System.arraycopy(tiles, 0, visible, 0, visible.length);
+        assertTiles(14, 0, visible);
+        assertThrows(IllegalArgumentException.class, () -> layout.updateTiles(0, 0, 5, tiles, 0));
+    }
+
+    private static byte[] record(int tileX, int tileY, byte[] tiles) {
+        byte[] data = new byte[tiles.length + 3];
+        data[0] = (byte) tileX;
+        data[1] = (byte) tileY;
+        data[2] = (byte) (tiles.length / 8);
+        System.arraycopy(tiles, 0, data, 3, tiles.length);
+        return data;
+    }
+
+    private void assertTiles(int tileX, int tileY, byte[] tiles) {
+        for (int n = 0; n < tiles.length; n++) {
+            int x = (tileX * 8) + n;
+            for (int bit = 0; bit < 8; bit++)
+                assertEquals((tiles[n] >>> bit) & 0x1, buffer.read(x, (tileY * 8) + bit));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: VerticalBufferLayoutTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator;
+
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+class VerticalBufferLayoutTest {
+
+    private VerticalBufferLayout layout;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        layout = new VerticalBufferLayout();
+        buffer = new PixelBuffer(128, 64);
+        layout.setBuffer(buffer);
+        layout.initialize();
+    }
+
+    @Test
+    @DisplayName("Page bytes are written as vertical columns")
+    void processByte() {
+        byte[] data = new byte[128 * 8];
+        new Random(1).nextBytes(data);
+        for (byte d : data)
+            layout.processByte(d);
+        assertPages(data);
+    }
+
+    @Test
+    @DisplayName("Bulk processing matches byte-by-byte processing")
+    void processBuffer() {
+        byte[] data = new byte[128 * 8];
+        new Random(2).nextBytes(data);
+        //start from an unaligned position to exercise the partial block handling
+        layout.processBuffer(new byte[] {data[0], data[1], data[2]});
+        byte[] rest = new byte[data.length - 3];
+        System.arraycopy(data, 3, rest, 0, rest.length);
+        layout.processBuffer(rest);
+        assertPages(data);
+    }
+
+    @Test
+    @DisplayName("Only the requested range of the source array is processed")
+    void processBufferRange() {
+        byte[] data = new byte[128 * 8];
+        new Random(3).nextBytes(data);
+        byte[] padded = new byte[data.length + 11];
+        System.arraycopy(data, 0, padded, 5, data.length);
+        padded[0] = padded[padded.length - 1] = (byte) 0xFF;
+        layout.processBuffer(padded, 5, data.length);
+        assertPages(data);
+    }
+
+    @Test
+    @DisplayName("Completed pages are published in incremental mode")
+    void incremental() {
+        layout.setIncremental(true);
+        byte[] page = new byte[128];
+        page[5] = 0x1;
+        layout.processBuffer(page);
+        assertEquals(1, layout.getPageIndex());
+        assertEquals(0, layout.getColumnIndex());
+        assertTrue(buffer.hasPublishedFrame());
+        assertEquals(1, buffer.getPublishedFrame().read(5, 0));
+
+        //nothing is published until the next page is complete
+        layout.processByte((byte) 0x1);
+        assertFalse(buffer.hasPublishedFrame());
+    }
+
+    @Test
+    @DisplayName("Bytes are written at the cursor position")
+    void setCursor() {
+        layout.processByte((byte) 0x1);
+        layout.setCursor(2, 10);
+        layout.processBuffer(new byte[] {(byte) 0x80, (byte) 0x80});
+        //partial blocks are pending until flushed
+        assertEquals(0, buffer.read(10, 23));
+        layout.flush();
+        assertEquals(1, buffer.read(0, 0));
+        assertEquals(1, buffer.read(10, 23));
+        assertEquals(1, buffer.read(11, 23));
+        assertEquals(12, layout.getColumnIndex());
+        assertThrows(IllegalArgumentException.class, () -> layout.setCursor(8, 0));
+    }
+
+    @Test
+    @DisplayName("Writes stay within the column and page range")
+    void columnAndPageRange() {
+        layout.setColumnRange(8, 23);
+        layout.setPageRange(2, 3);
+        byte[] data = new byte[16 * 2 + 8];
+        Arrays.fill(data, (byte) 0xFF);
+        layout.processBuffer(data);
+        layout.flush();
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 128; x++)
+                assertEquals(x >= 8 && x < 24 && y >= 16 && y < 32 ? 1 : 0, buffer.read(x, y), "x = " + x + ", y = " + y);
+        }
+        //data past the end of the range wraps back to the start page
+        assertEquals(2, layout.getPageIndex());
+        assertEquals(16, layout.getColumnIndex());
+        assertThrows(IllegalArgumentException.class, () -> layout.setColumnRange(10, 128));
+        assertThrows(IllegalArgumentException.class, () -> layout.setPageRange(3, 2));
+    }
+
+    @Test
+    @DisplayName("Page addressing mode wraps on the same page")
+    void pageAddressing() {
+        layout.setAddressingMode(VerticalBufferLayout.AddressingMode.PAGE);
+        layout.setCursor(5, 120);
+        layout.processBuffer(new byte[] {1, 1, 1, 1, 1, 1, 1, 1, 1, 1});
+        layout.flush();
+        assertEquals(5, layout.getPageIndex());
+        assertEquals(2, layout.getColumnIndex());
+        assertEquals(1, buffer.read(127, 40));
+        assertEquals(1, buffer.read(0, 40));
+        assertEquals(1, buffer.read(1, 40));
+        assertEquals(0, buffer.read(0, 48));
+    }
+
+    @Test
+    @DisplayName("Vertical addressing mode advances the page first")
+    void verticalAddressing() {
+        layout.setAddressingMode(VerticalBufferLayout.AddressingMode.VERTICAL);
+        layout.setPageRange(0, 1);
+        layout.processBuffer(new byte[] {1, 2, 4});
+        assertEquals(1, buffer.read(0, 0));
+        assertEquals(1, buffer.read(0, 9));
+        assertEquals(1, buffer.read(1, 2));
+        assertEquals(1, layout.getPageIndex());
+        assertEquals(1, layout.getColumnIndex());
+    }
+
+    private void assertPages(byte[] data) {
+        for (int page = 0; page < 8; page++) {
+            for (int x = 0; x < 128; x++) {
+                byte column = data[(page * 128) + x];
+                for (int bit = 0; bit < 8; bit++)
+                    assertEquals((column >>> bit) & 0x1, buffer.read(x, (page * 8) + bit));
+            }
+        }
+    }
+}
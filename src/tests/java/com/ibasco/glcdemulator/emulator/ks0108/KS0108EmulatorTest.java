@@ -0,0 +1,109 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: KS0108EmulatorTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.ks0108;
+
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout;
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class KS0108EmulatorTest {
+
+    private KS0108Emulator emulator;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        emulator = new KS0108Emulator();
+        buffer = new PixelBuffer(128, 64);
+        VerticalBufferLayout layout = new VerticalBufferLayout();
+        layout.setBuffer(buffer);
+        layout.initialize();
+        emulator.setBuffer(buffer);
+        emulator.setBufferLayout(layout);
+    }
+
+    @Test
+    @DisplayName("Each chip writes to its own half of the display")
+    void chipSelect() {
+        select(0x1);
+        command(0x40 | 10, 0xB8 | 2);
+        data(0x01);
+        select(0x2);
+        command(0x40 | 10, 0xB8 | 5);
+        data(0x01);
+        emulator.flush();
+        assertEquals(1, buffer.read(10, 16));
+        assertEquals(1, buffer.read(74, 40));
+        assertEquals(0, buffer.read(74, 16));
+        assertEquals(0, buffer.read(10, 40));
+    }
+
+    @Test
+    @DisplayName("The column address wraps around within the chip")
+    void columnWraps() {
+        select(0x2);
+        command(0x40 | 63, 0xB8 | 1);
+        data(0x01, 0x01);
+        emulator.flush();
+        assertEquals(1, buffer.read(127, 8));
+        assertEquals(1, buffer.read(64, 8));
+        assertEquals(0, buffer.read(0, 8));
+        assertEquals(0, buffer.read(0, 16));
+    }
+
+    @Test
+    @DisplayName("Data is written to all selected chips")
+    void bothChips() {
+        select(0x3);
+        command(0x40, 0xB8);
+        data(0x80);
+        emulator.flush();
+        assertEquals(1, buffer.read(0, 7));
+        assertEquals(1, buffer.read(64, 7));
+    }
+
+    private void select(int chips) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_START_TRANSFER, chips));
+    }
+
+    private void command(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+
+    private void data(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+}
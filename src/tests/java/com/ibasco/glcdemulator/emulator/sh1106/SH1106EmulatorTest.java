@@ -0,0 +1,112 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: SH1106EmulatorTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.sh1106;
+
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout;
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SH1106EmulatorTest {
+
+    private SH1106Emulator emulator;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        emulator = new SH1106Emulator();
+        buffer = new PixelBuffer(128, 64);
+        VerticalBufferLayout layout = new VerticalBufferLayout();
+        layout.setBuffer(buffer);
+        layout.initialize();
+        emulator.setBuffer(buffer);
+        emulator.setBufferLayout(layout);
+    }
+
+    @Test
+    @DisplayName("A 128 column display starts at display RAM column 2")
+    void columnOffset() {
+        command(0x02, 0x10, 0xB0 | 3);
+        data(0x01);
+        emulator.flush();
+        assertEquals(1, buffer.read(0, 24));
+    }
+
+    @Test
+    @DisplayName("The column address wraps around within the page")
+    void columnWraps() {
+        for (int i = 0; i < 2; i++) {
+            //display column 126 is display RAM column 128
+            command(0x00, 0x10 | 8, 0xB0 | 1);
+            data(0x01, 0x01, 0x01, 0x01);
+            emulator.flush();
+            assertEquals(1, buffer.read(126, 8));
+            assertEquals(1, buffer.read(127, 8));
+            assertEquals(1, buffer.read(0, 8));
+            assertEquals(1, buffer.read(1, 8));
+            assertEquals(0, buffer.read(0, 16));
+            //page addressing is kept after a reset
+            buffer.clear();
+            emulator.reset();
+        }
+    }
+
+    @Test
+    @DisplayName("A single column nibble applies to the column reached by the preceding data")
+    void columnNibble() {
+        command(0x02, 0x10, 0xB0);
+        data(new int[20]);
+        //display column 20 is display RAM column 0x16, replacing the low nibble moves back to 0x10
+        command(0x00);
+        data(0x01);
+        emulator.flush();
+        assertEquals(1, buffer.read(14, 0));
+        assertEquals(0, buffer.read(20, 0));
+
+        //the cursor moved on to display RAM column 0x11, the high nibble keeps its low nibble
+        command(0x10 | 2);
+        data(0x01);
+        emulator.flush();
+        assertEquals(1, buffer.read(0x21 - 2, 0));
+    }
+
+    private void command(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+
+    private void data(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+}
@@ -0,0 +1,136 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: SSD1306EmulatorTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.ssd1306;
+
+import com.ibasco.glcdemulator.emulator.VerticalBufferLayout;
+import com.ibasco.glcdemulator.utils.PixelBuffer;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2ByteEvent;
+import com.ibasco.ucgdisplay.core.u8g2.U8g2Message;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SSD1306EmulatorTest {
+
+    private SSD1306Emulator emulator;
+
+    private PixelBuffer buffer;
+
+    private void create(int width, int height) {
+        emulator = new SSD1306Emulator();
+        buffer = new PixelBuffer(width, height);
+        VerticalBufferLayout layout = new VerticalBufferLayout();
+        layout.setBuffer(buffer);
+        layout.initialize();
+        emulator.setBuffer(buffer);
+        emulator.setBufferLayout(layout);
+    }
+
+    @Test
+    @DisplayName("Data is written at the page and column set with page addressing commands")
+    void pageAddressing() {
+        create(128, 64);
+        command(0x20, 0x02);
+        command(0xB3, 0x12, 0x05); //page 3, column 0x25
+        data(0xFF, 0x01);
+        assertEquals(1, buffer.read(0x25, 24));
+        assertEquals(1, buffer.read(0x25, 31));
+        assertEquals(1, buffer.read(0x26, 24));
+        assertEquals(0, buffer.read(0x26, 25));
+        assertEquals(0, buffer.read(0x24, 24));
+    }
+
+    @Test
+    @DisplayName("Column and page address ranges confine the update region")
+    void addressRanges() {
+        create(128, 64);
+        command(0x20, 0x00);
+        command(0x21, 100, 103);
+        command(0x22, 6, 7);
+        data(1, 1, 1, 1, 2, 2, 2, 2);
+        for (int x = 100; x < 104; x++) {
+            assertEquals(1, buffer.read(x, 48));
+            assertEquals(1, buffer.read(x, 57));
+        }
+        assertEquals(0, buffer.read(104, 48));
+        assertEquals(0, buffer.read(0, 56));
+    }
+
+    @Test
+    @DisplayName("Displays narrower than the controller RAM are offset")
+    void columnOffset() {
+        create(64, 48);
+        assertEquals(32, emulator.getColumnOffset());
+        command(0xB1, 0x12, 0x00); //page 1, column 32
+        data(0x01);
+        assertEquals(1, buffer.read(0, 8));
+        //columns outside of the display are ignored
+        command(0x10, 0x00);
+        data(0x01);
+        assertEquals(1, buffer.read(1, 8));
+    }
+
+    @Test
+    @DisplayName("Arguments of unsupported commands are skipped")
+    void skipArguments() {
+        create(128, 64);
+        command(0x81, 0xB7, 0xB2); //contrast 0xB7, then page 2
+        data(0x01);
+        assertEquals(1, buffer.read(0, 16));
+    }
+
+    @Test
+    @DisplayName("Runs of commands and data match individual byte events")
+    void bulkRuns() {
+        create(128, 64);
+        byte[] run = {0x00, 0x20, 0x00, 0x21, 10, 17, 0x22, 1, 1, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+        //commands start at offset 1, data at offset 9
+        emulator.onCommand(run, 1, 8);
+        emulator.onData(run, 9, 16);
+        emulator.flush();
+        PixelBuffer bulk = buffer;
+
+        create(128, 64);
+        command(0x20, 0x00, 0x21, 10, 17, 0x22, 1, 1);
+        data(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16);
+        assertTrue(buffer.contentEquals(bulk));
+        //the column range wrapped back onto the same page
+        assertEquals(1, bulk.read(10, 8 + 0) & bulk.read(10, 8 + 3));
+    }
+
+    private void command(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 0));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+    }
+
+    private void data(int... values) {
+        emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SET_DC, 1));
+        for (int value : values)
+            emulator.onByteEvent(new U8g2ByteEvent(U8g2Message.U8X8_MSG_BYTE_SEND, value));
+        emulator.getBufferLayout().flush();
+    }
+}
@@ -0,0 +1,55 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: ST7920InstructionFlagTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.emulator.st7920;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ST7920InstructionFlagTest {
+
+    @Test
+    @DisplayName("Decode table agrees with flag matching for every instruction byte")
+    void decodeMatchesFlags() {
+        for (int value = 0; value < 256; value++) {
+            ST7920InstructionFlag expected = null;
+            for (ST7920InstructionFlag flag : ST7920InstructionFlag.values()) {
+                if (flag.matches(value)) {
+                    expected = flag;
+                    break;
+                }
+            }
+            assertEquals(expected, ST7920InstructionFlag.decode(value), "Value: " + Integer.toHexString(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Decode uses only the lower 8 bits of the value")
+    void decodeMasksValue() {
+        assertEquals(ST7920InstructionFlag.DDRAM_SET, ST7920InstructionFlag.decode(0x180));
+        assertNull(ST7920InstructionFlag.decode(0x100));
+    }
+}
@@ -0,0 +1,92 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameHistoryTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class FrameHistoryTest {
+
+    @Test
+    @DisplayName("Any retained frame can be rebuilt")
+    void randomAccess() {
+        FrameHistory history = new FrameHistory(64 * 1024, 100, 10);
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.addFrameListener(history);
+        List<PixelBuffer> frames = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            buffer.write(random.nextInt(128), random.nextInt(64), true);
+            buffer.publish();
+            frames.add(buffer.copy());
+        }
+        assertEquals(50, history.size());
+        assertEquals(0, history.getOldestFrameNumber());
+        assertEquals(49, history.getLatestFrameNumber());
+        for (int i = 0; i < frames.size(); i++)
+            assertTrue(frames.get(i).contentEquals(history.getFrame(i)));
+        assertNull(history.getFrame(50));
+    }
+
+    @Test
+    @DisplayName("Oldest frames are evicted once the limits are reached")
+    void eviction() {
+        FrameHistory history = new FrameHistory(4096, 20, 5);
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.addFrameListener(history);
+        Random random = new Random(2);
+        PixelBuffer last = null;
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 100; j++)
+                buffer.write(random.nextInt(128), random.nextInt(64), random.nextBoolean());
+            buffer.publish();
+            last = buffer.copy();
+            assertTrue(history.size() <= 20);
+            assertTrue(history.getMemoryUsage() <= history.getCapacity());
+        }
+        assertEquals(199, history.getLatestFrameNumber());
+        assertTrue(last.contentEquals(history.getFrame(199)));
+        assertNull(history.getFrame(history.getOldestFrameNumber() - 1));
+    }
+
+    @Test
+    @DisplayName("Frames are ignored while paused")
+    void paused() {
+        FrameHistory history = new FrameHistory(4096, 20);
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.addFrameListener(history);
+        buffer.publish();
+        history.setPaused(true);
+        buffer.write(0, 0, true);
+        buffer.publish();
+        assertEquals(1, history.size());
+    }
+}
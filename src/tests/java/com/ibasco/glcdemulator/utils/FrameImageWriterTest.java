@@ -0,0 +1,72 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameImageWriterTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+class FrameImageWriterTest {
+
+    @Test
+    @DisplayName("Rendered images match the output of the rasterizer")
+    void render() {
+        FrameImageWriter writer = new FrameImageWriter();
+        PixelBuffer frame = new PixelBuffer(16, 8);
+        frame.write(3, 2, true);
+        BufferedImage image = writer.render(frame);
+        PixelRasterizer rasterizer = writer.getRasterizer();
+        assertEquals(rasterizer.getWidth(), image.getWidth());
+        assertEquals(rasterizer.getHeight(), image.getHeight());
+        assertArrayEquals(rasterizer.getPixels(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+    }
+
+    @Test
+    @DisplayName("Frames are written as PNG files")
+    void write() throws IOException {
+        FrameImageWriter writer = new FrameImageWriter();
+        PixelBuffer frame = new PixelBuffer(16, 8);
+        frame.write(0, 0, true);
+        frame.write(15, 7, true);
+        File dir = Files.createTempDirectory("frame").toFile();
+        File file = writer.write(frame, new File(dir, "frame"));
+        try {
+            assertEquals("frame.png", file.getName());
+            BufferedImage image = ImageIO.read(file);
+            int[] expected = writer.getRasterizer().getPixels();
+            assertArrayEquals(expected, image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        } finally {
+            assertTrue(file.delete());
+            assertTrue(dir.delete());
+        }
+    }
+}
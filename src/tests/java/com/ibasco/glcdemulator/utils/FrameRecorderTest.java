@@ -0,0 +1,135 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: FrameRecorderTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+class FrameRecorderTest {
+
+    private File file;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("recording", ".png");
+        buffer = new PixelBuffer(16, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    @DisplayName("Identical consecutive frames are merged")
+    void merge() throws Exception {
+        FrameRecorder recorder = start(1);
+        publish(recorder, 1);
+        publish(recorder, 1);
+        publish(recorder, 2);
+        publish(recorder, 1);
+        recorder.stop().get();
+        List<String> chunks = new ArrayList<>();
+        assertEquals(3, readAnimation(chunks));
+        assertEquals(3, recorder.getRecordedFrames());
+        assertEquals("[IHDR, acTL, PLTE, fcTL, IDAT, fcTL, fdAT, fcTL, fdAT, IEND]", chunks.toString());
+        //viewers without APNG support show the first frame
+        BufferedImage image = ImageIO.read(file);
+        assertEquals(0xFF000000, image.getRGB(1, 0));
+        assertNotEquals(0xFF000000, image.getRGB(2, 0));
+    }
+
+    @Test
+    @DisplayName("Only every n-th frame is recorded")
+    void interval() throws Exception {
+        FrameRecorder recorder = start(2);
+        for (int x = 0; x < 6; x++)
+            publish(recorder, x);
+        recorder.stop().get();
+        assertEquals(3, readAnimation(new ArrayList<>()));
+    }
+
+    @Test
+    @DisplayName("No file is written if no frames have been recorded")
+    void empty() throws Exception {
+        assertTrue(file.delete());
+        FrameRecorder recorder = start(1);
+        assertEquals(file, recorder.stop().get());
+        assertFalse(file.exists());
+    }
+
+    private FrameRecorder start(int interval) {
+        IndexedPngEncoder encoder = new IndexedPngEncoder();
+        FrameRecorder recorder = new FrameRecorder(file, encoder, interval, FrameRecorder.DEFAULT_QUEUE_CAPACITY);
+        recorder.start();
+        return recorder;
+    }
+
+    private void publish(FrameRecorder recorder, int x) {
+        buffer.clear();
+        buffer.write(x, 0, true);
+        recorder.onFrame(buffer);
+    }
+
+    /**
+     * @return The number of frames declared in the animation control chunk
+     */
+    private int readAnimation(List<String> chunks) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        data.position(IndexedPngEncoder.SIGNATURE.length);
+        int frames = -1, sequence = 0;
+        while (data.hasRemaining()) {
+            int length = data.getInt();
+            byte[] type = new byte[4];
+            data.get(type);
+            String name = new String(type, StandardCharsets.US_ASCII);
+            chunks.add(name);
+            if (name.equals("acTL"))
+                frames = data.getInt(data.position());
+            //frame control and frame data chunks share one sequence
+            if (name.equals("fcTL") || name.equals("fdAT"))
+                assertEquals(sequence++, data.getInt(data.position()));
+            data.position(data.position() + length + 4);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,128 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: GlcdBufferProcessorTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import com.ibasco.ucgdisplay.drivers.glcd.Glcd;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class GlcdBufferProcessorTest {
+
+    private static final int FRAME_SIZE = 1024;
+
+    @Test
+    @DisplayName("Runs of bytes match byte-by-byte processing across frame boundaries")
+    void processRuns() {
+        byte[] data = new byte[(FRAME_SIZE * 5) / 2];
+        new Random(1).nextBytes(data);
+
+        PixelBuffer expected = new PixelBuffer(128, 64);
+        Stats expectedStats = new Stats();
+        GlcdBufferProcessor single = create(expected, expectedStats);
+        for (byte d : data)
+            single.process(d);
+
+        PixelBuffer actual = new PixelBuffer(128, 64);
+        Stats actualStats = new Stats();
+        GlcdBufferProcessor bulk = create(actual, actualStats);
+        //runs which do not line up with the frames
+        for (int offset = 0; offset < data.length; offset += 700)
+            bulk.process(data, offset, Math.min(700, data.length - offset));
+
+        assertTrue(expected.contentEquals(actual));
+        assertTrue(expected.getPublishedFrame().contentEquals(actual.getPublishedFrame()));
+        assertEquals(2, actualStats.getFpsCounter().getCurrentCount());
+        assertEquals(data.length, actualStats.getByteCounter().getCurrentCount());
+        assertEquals(FRAME_SIZE / 2, actualStats.getBytesPerFrame().get());
+    }
+
+    @Test
+    @DisplayName("Repeated frames within a run are counted as duplicates")
+    void duplicateFrames() {
+        byte[] frame = new byte[FRAME_SIZE];
+        new Random(2).nextBytes(frame);
+        byte[] data = new byte[FRAME_SIZE * 3];
+        for (int n = 0; n < 3; n++)
+            System.arraycopy(frame, 0, data, n * FRAME_SIZE, FRAME_SIZE);
+
+        Stats stats = new Stats();
+        GlcdBufferProcessor processor = create(new PixelBuffer(128, 64), stats);
+        processor.process(data, 0, data.length);
+        assertEquals(3, stats.getFpsCounter().getCurrentCount());
+        assertEquals(2, stats.getDuplicateFrames());
+    }
+
+    private static GlcdBufferProcessor create(PixelBuffer buffer, Stats stats) {
+        GlcdBufferProcessor processor = new GlcdBufferProcessor();
+        processor.setDisplay(Glcd.ST7920.D_128x64);
+        processor.setBuffer(buffer);
+        processor.setStats(stats);
+        processor.initialize();
+        stats.getBytesPerFrame().set(0);
+        return processor;
+    }
+
+    /**
+     * Statistics without the FX thread updates. The frame size is fixed so no update is posted when a frame completes.
+     */
+    private static class Stats extends ByteProcessStats {
+
+        private final Counter fpsCounter = new QuietCounter();
+
+        private final Counter byteCounter = new QuietCounter();
+
+        private final Counter duplicateFrameCounter = new QuietCounter();
+
+        @Override
+        public Counter getFpsCounter() {
+            return fpsCounter;
+        }
+
+        @Override
+        public Counter getByteCounter() {
+            return byteCounter;
+        }
+
+        @Override
+        public Counter getDuplicateFrameCounter() {
+            return duplicateFrameCounter;
+        }
+
+        @Override
+        public int getFrameSize() {
+            return FRAME_SIZE;
+        }
+    }
+
+    private static class QuietCounter extends Counter {
+        @Override
+        public synchronized void pulse(long now) {
+        }
+    }
+}
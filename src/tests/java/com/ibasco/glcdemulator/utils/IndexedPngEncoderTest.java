@@ -0,0 +1,116 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: IndexedPngEncoderTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+class IndexedPngEncoderTest {
+
+    private static final int BACKGROUND = 0xFFA5F242;
+
+    private static final int INACTIVE = 0xFF8BD02F;
+
+    private static final int ACTIVE = 0xFF000000;
+
+    private IndexedPngEncoder encoder;
+
+    private PixelBuffer frame;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new IndexedPngEncoder();
+        encoder.setBackgroundColor(BACKGROUND);
+        encoder.setInactiveColor(INACTIVE);
+        encoder.setActiveColor(ACTIVE);
+        //wider than a 64 bit word
+        frame = new PixelBuffer(72, 8);
+        frame.write(0, 0, true);
+        frame.write(9, 2, true);
+        frame.write(71, 7, true);
+    }
+
+    @Test
+    @DisplayName("Frames without margin and spacing are encoded with 1 bit per pixel")
+    void plain() throws IOException {
+        BufferedImage image = decode();
+        assertEquals(72, image.getWidth());
+        assertEquals(8, image.getHeight());
+        assertEquals(1, image.getColorModel().getPixelSize());
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 72; x++)
+                assertEquals(frame.read(x, y) == 1 ? ACTIVE : INACTIVE, image.getRGB(x, y), "x = " + x + ", y = " + y);
+        }
+    }
+
+    @Test
+    @DisplayName("Scale, margin and spacing are applied with whole pixels")
+    void scaled() throws IOException {
+        encoder.setScale(3);
+        encoder.setSpacing(1);
+        encoder.setMargin(2);
+        BufferedImage image = decode();
+        assertEquals((72 * 4) + 1 + 4, image.getWidth());
+        assertEquals((8 * 4) + 1 + 4, image.getHeight());
+        assertEquals(2, image.getColorModel().getPixelSize());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int cellX = x - 3, cellY = y - 3;
+                int expected = BACKGROUND;
+                if (cellX >= 0 && cellY >= 0 && cellX % 4 < 3 && cellY % 4 < 3 && cellX / 4 < 72 && cellY / 4 < 8)
+                    expected = frame.read(cellX / 4, cellY / 4) == 1 ? ACTIVE : INACTIVE;
+                assertEquals(expected, image.getRGB(x, y), "x = " + x + ", y = " + y);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Translucent colors are stored in the palette")
+    void translucent() throws IOException {
+        encoder.setBackgroundColor(0x00000000);
+        encoder.setInactiveColor(0x00000000);
+        encoder.setActiveColor(0x80FFFFFF);
+        BufferedImage image = decode();
+        IndexColorModel palette = (IndexColorModel) image.getColorModel();
+        assertEquals(0, palette.getAlpha(0));
+        assertEquals(0x80, palette.getAlpha(1));
+        assertEquals(0x80FFFFFF, image.getRGB(0, 0));
+    }
+
+    private BufferedImage decode() throws IOException {
+        //encode twice, the per thread deflater must be reset in between
+        encoder.encode(frame);
+        return ImageIO.read(new ByteArrayInputStream(encoder.encode(frame)));
+    }
+}
@@ -0,0 +1,67 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: MappedFrameExporterTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class MappedFrameExporterTest {
+
+    @Test
+    @DisplayName("Changed rows of every published frame reach the mapped file")
+    void exportChangedRows() throws Exception {
+        Path file = Files.createTempFile("glcd", ".frame");
+        try (MappedFrameExporter exporter = new MappedFrameExporter(file)) {
+            PixelBuffer buffer = new PixelBuffer(128, 64);
+            buffer.addFrameListener(exporter);
+            buffer.write(0, 0, true);
+            buffer.publish();
+            buffer.write(127, 63, true);
+            buffer.publish();
+            buffer.write(0, 0, false);
+            buffer.write(64, 30, true);
+            buffer.publish();
+
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(128, data.getInt(8));
+            assertEquals(64, data.getInt(12));
+            assertEquals(3, data.getLong(32));
+            data.position(MappedFrameExporter.HEADER_SIZE);
+            ByteBuffer expected = ByteBuffer.allocate(buffer.getHeight() * buffer.getWidth() / 8);
+            buffer.copyTo(expected);
+            expected.flip();
+            assertEquals(expected, data.slice());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
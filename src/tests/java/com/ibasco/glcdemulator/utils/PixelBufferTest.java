@@ -0,0 +1,353 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PixelBufferTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class PixelBufferTest {
+
+    @Test
+    @DisplayName("Write and read back individual pixels")
+    void writeAndReadPixels() {
+        PixelBuffer buffer = new PixelBuffer(256, 128);
+        buffer.write(0, 0, true);
+        buffer.write(63, 0, true);
+        buffer.write(64, 5, true);
+        buffer.write(255, 127, true);
+        assertEquals(1, buffer.read(0, 0));
+        assertEquals(1, buffer.read(63, 0));
+        assertEquals(1, buffer.read(64, 5));
+        assertEquals(1, buffer.read(255, 127));
+        assertEquals(0, buffer.read(1, 0));
+        buffer.write(63, 0, false);
+        assertEquals(0, buffer.read(63, 0));
+    }
+
+    @Test
+    @DisplayName("Out of bounds coordinates are ignored in fair mode")
+    void outOfBoundsFair() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(128, 0, true);
+        buffer.write(0, 64, true);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.read(128, 0));
+    }
+
+    @Test
+    @DisplayName("Out of bounds coordinates throw in non-fair mode")
+    void outOfBoundsNotFair() {
+        PixelBuffer buffer = new PixelBuffer(128, 64, false);
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.write(128, 0, true));
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.read(0, 64));
+    }
+
+    @Test
+    @DisplayName("Sequential byte writes keep the row/byte layout")
+    void sequentialByteWrites() {
+        PixelBuffer buffer = new PixelBuffer(16, 8);
+        buffer.write((byte) 0x01);
+        buffer.write((byte) 0x80);
+        assertEquals(2, buffer.position());
+        assertEquals(1, buffer.yPosition());
+        assertEquals(1, buffer.read(0, 0));
+        assertEquals(1, buffer.read(15, 0));
+        byte[][] data = buffer.getBuffer();
+        assertEquals(0x01, data[0][0]);
+        assertEquals((byte) 0x80, data[0][1]);
+        assertTrue(buffer.contentEquals(new PixelBuffer(data)));
+    }
+
+    @Test
+    @DisplayName("Clear, copy and content comparison operate on the whole buffer")
+    void clearCopyEquals() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(10, 20, true);
+        PixelBuffer copy = buffer.copy();
+        assertTrue(buffer.contentEquals(copy));
+        //buffers are mutable, equality stays identity based
+        assertNotEquals(buffer, copy);
+        copy.write(11, 20, true);
+        assertFalse(buffer.contentEquals(copy));
+        assertFalse(buffer.contentEquals(new PixelBuffer(128, 56)));
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Resizing keeps the overlapping region")
+    void resize() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(5, 5, true);
+        buffer.write(100, 5, true);
+        buffer.resize(64, 32);
+        assertEquals(64, buffer.getWidth());
+        assertEquals(32, buffer.getHeight());
+        assertEquals(1, buffer.read(5, 5));
+        buffer.resize(128, 64);
+        assertEquals(1, buffer.read(5, 5));
+        assertEquals(0, buffer.read(100, 5));
+    }
+
+    @Test
+    @DisplayName("Changed tiles are merged into regions and drained")
+    void drainDirtyRegions() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        assertFalse(buffer.hasDirtyRegions());
+        buffer.write(3, 3, true);
+        buffer.write(12, 3, true);
+        buffer.write(3, 12, true);
+        buffer.write(12, 12, true);
+        buffer.write(100, 60, true);
+        assertTrue(buffer.isInvalidated());
+
+        List<PixelRegion> regions = buffer.drainDirtyRegions();
+        assertEquals(2, regions.size());
+        assertTrue(regions.contains(new PixelRegion(0, 0, 16, 16)));
+        assertTrue(regions.contains(new PixelRegion(96, 56, 8, 8)));
+        assertFalse(buffer.hasDirtyRegions());
+        assertFalse(buffer.isInvalidated());
+        assertTrue(buffer.drainDirtyRegions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Writing an unchanged pixel does not mark it dirty")
+    void unchangedPixelNotDirty() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(7, 7, false);
+        buffer.read(7, 7);
+        assertFalse(buffer.hasDirtyRegions());
+        assertFalse(buffer.isInvalidated());
+        buffer.write(7, 7, true);
+        assertEquals(1, buffer.read(7, 7));
+        assertTrue(buffer.isInvalidated());
+        buffer.clear();
+        assertEquals(new PixelRegion(0, 0, 128, 64), buffer.drainDirtyRegions().get(0));
+    }
+
+    @Test
+    @DisplayName("Horizontal spans are written across word boundaries and clipped")
+    void writeSpan() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.writeSpan(60, 1, 0xFFL, 8);
+        for (int x = 60; x < 68; x++)
+            assertEquals(1, buffer.read(x, 1));
+        assertEquals(0, buffer.read(59, 1));
+        assertEquals(0, buffer.read(68, 1));
+
+        buffer.writeSpan(124, 2, 0xFFL, 8);
+        assertEquals(1, buffer.read(127, 2));
+        assertEquals(0, buffer.read(0, 3));
+
+        PixelBuffer strict = new PixelBuffer(128, 64, false);
+        assertThrows(IndexOutOfBoundsException.class, () -> strict.writeSpan(124, 2, 0xFFL, 8));
+    }
+
+    @Test
+    @DisplayName("Vertical page columns are written least significant bit first")
+    void writeColumn() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.writeColumn(5, 1, (byte) 0x81);
+        assertEquals(1, buffer.read(5, 8));
+        assertEquals(0, buffer.read(5, 9));
+        assertEquals(1, buffer.read(5, 15));
+        assertEquals(new PixelRegion(0, 8, 8, 8), buffer.drainDirtyRegions().get(0));
+    }
+
+    @Test
+    @DisplayName("Packed blocks are copied into the buffer")
+    void blit() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        byte[] data = {(byte) 0xFF, 0x01, 0x00, (byte) 0x80};
+        buffer.blit(3, 4, 16, 2, data, 0, 2);
+        assertEquals(1, buffer.read(3, 4));
+        assertEquals(1, buffer.read(11, 4));
+        assertEquals(0, buffer.read(12, 4));
+        assertEquals(0, buffer.read(3, 5));
+        assertEquals(1, buffer.read(18, 5));
+    }
+
+    @Test
+    @DisplayName("Published frames are isolated from subsequent writes")
+    void publishFrame() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        assertSame(buffer, buffer.getPublishedFrame());
+
+        buffer.write(1, 1, true);
+        buffer.publish();
+        assertTrue(buffer.hasPublishedFrame());
+        PixelBuffer frame = buffer.getPublishedFrame();
+        assertFalse(buffer.hasPublishedFrame());
+        assertTrue(buffer.contentEquals(frame));
+
+        buffer.write(2, 2, true);
+        assertSame(frame, buffer.getPublishedFrame());
+        assertEquals(0, frame.read(2, 2));
+
+        buffer.publish();
+        assertEquals(1, buffer.getPublishedFrame().read(2, 2));
+    }
+
+    @Test
+    @DisplayName("Published frames carry their changed regions and slots catch up on skipped frames")
+    void publishedRegions() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(1, 1, true);
+        buffer.publish();
+        PixelBuffer frame = buffer.getPublishedFrame();
+        assertEquals(Collections.singletonList(new PixelRegion(0, 0, 128, 64)), frame.getChangedRegions());
+        assertFalse(buffer.hasDirtyRegions());
+
+        //published while the reader holds the first frame, so the slots are written out of step
+        buffer.write(100, 20, true);
+        buffer.publish();
+        buffer.write(2, 40, true);
+        buffer.publish();
+        buffer.write(1, 1, false);
+        buffer.publish();
+        frame = buffer.getPublishedFrame();
+        assertEquals(Collections.singletonList(new PixelRegion(0, 0, 8, 8)), frame.getChangedRegions());
+        assertTrue(buffer.contentEquals(frame));
+
+        buffer.write(127, 63, true);
+        buffer.publish();
+        frame = buffer.getPublishedFrame();
+        assertEquals(Collections.singletonList(new PixelRegion(120, 56, 8, 8)), frame.getChangedRegions());
+        assertTrue(buffer.contentEquals(frame));
+    }
+
+    @Test
+    @DisplayName("Frame listeners are notified on publish")
+    void frameListener() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        List<PixelBuffer> frames = new ArrayList<>();
+        FrameListener listener = frames::add;
+        buffer.addFrameListener(listener);
+        buffer.publish();
+        buffer.removeFrameListener(listener);
+        buffer.write(0, 0, true);
+        buffer.publish();
+        assertEquals(1, frames.size());
+    }
+
+    @Test
+    @DisplayName("Frames identical to the last published frame are dropped")
+    void duplicateFrames() {
+        PixelBuffer buffer = new PixelBuffer(128, 64);
+        buffer.write(5, 5, true);
+        assertTrue(buffer.publish());
+        buffer.getPublishedFrame();
+
+        //untouched
+        assertFalse(buffer.publish());
+        //rewritten with the same contents
+        buffer.clear();
+        buffer.write(5, 5, true);
+        assertFalse(buffer.publish());
+        assertFalse(buffer.hasPublishedFrame());
+
+        buffer.write(6, 5, true);
+        assertTrue(buffer.publish());
+        assertTrue(buffer.hasPublishedFrame());
+        assertEquals(buffer.contentHash(), buffer.getPublishedFrame().contentHash());
+    }
+
+    @Test
+    @DisplayName("A frame with a colliding hash is still published")
+    void hashCollision() {
+        //64x8, one word per row. Changing the first word and compensating in the second makes the hash state identical
+        //from the third word on (see PixelBuffer#contentHash)
+        long first = 0x1L, second = 0x2L, other = 0x3L;
+        long seed = (64L << 32) | 8;
+        long colliding = second ^ mix(seed, first) ^ mix(seed, other);
+
+        PixelBuffer buffer = new PixelBuffer(64, 8);
+        buffer.write(words(first, second), false);
+        assertTrue(buffer.publish());
+        long hash = buffer.contentHash();
+
+        buffer.reset();
+        buffer.write(words(other, colliding), false);
+        assertEquals(hash, buffer.contentHash());
+        assertTrue(buffer.publish());
+        assertTrue(buffer.contentEquals(buffer.getPublishedFrame()));
+    }
+
+    private static long mix(long hash, long word) {
+        hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static ByteBuffer words(long... words) {
+        ByteBuffer data = ByteBuffer.allocate(words.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (long word : words)
+            data.putLong(word);
+        data.flip();
+        return data;
+    }
+
+    @Test
+    @DisplayName("Rows are exported in byte layout")
+    void copyTo() {
+        PixelBuffer buffer = new PixelBuffer(72, 8);
+        buffer.write(0, 0, true);
+        buffer.write(71, 0, true);
+        buffer.write(9, 1, true);
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            ByteBuffer target = ByteBuffer.allocate(72).order(order);
+            buffer.copyTo(target);
+            assertFalse(target.hasRemaining());
+            byte[][] expected = buffer.getBuffer();
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 9; x++)
+                    assertEquals(expected[y][x], target.get(y * 9 + x));
+            }
+            assertEquals((byte) 0x80, target.get(8));
+        }
+    }
+
+    @Test
+    @DisplayName("Column blocks match individual column writes")
+    void writeColumns() {
+        PixelBuffer expected = new PixelBuffer(128, 64);
+        PixelBuffer actual = new PixelBuffer(128, 64);
+        long columns = 0x8040201008040201L ^ 0x00FF00FF00FF00FFL;
+        for (int n = 0; n < 8; n++)
+            expected.writeColumn(64 + n, 3, (byte) (columns >>> (n * 8)));
+        actual.writeColumns(64, 3, columns);
+        assertTrue(expected.contentEquals(actual));
+        //partially visible block is clipped
+        actual.writeColumns(124, 7, -1L);
+        assertEquals(1, actual.read(127, 63));
+    }
+}
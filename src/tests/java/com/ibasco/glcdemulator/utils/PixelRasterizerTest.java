@@ -0,0 +1,203 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: PixelRasterizerTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import com.ibasco.glcdemulator.enums.PixelShape;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+class PixelRasterizerTest {
+
+    private static final int BACKLIGHT = 0xFFA5F242;
+
+    private PixelRasterizer rasterizer;
+
+    private PixelBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        rasterizer = new PixelRasterizer();
+        rasterizer.setPixelSize(2);
+        rasterizer.setSpacing(1);
+        rasterizer.setMargin(3);
+        rasterizer.setActiveColor(0xFF000000);
+        rasterizer.setInactiveColor(0x00000000);
+        rasterizer.setBacklightColor(BACKLIGHT, BACKLIGHT);
+        buffer = new PixelBuffer(16, 8);
+    }
+
+    @Test
+    @DisplayName("Pixel size, spacing and margin are honoured")
+    void geometry() {
+        buffer.write(0, 0, true);
+        buffer.write(15, 7, true);
+        int[] pixels = rasterizer.rasterize(buffer);
+        assertEquals((16 * 2) + (16 * 1) + 1 + (3 * 2), rasterizer.getWidth());
+        assertEquals((8 * 2) + (8 * 1) + 1 + (3 * 2), rasterizer.getHeight());
+        int width = rasterizer.getWidth();
+        //the first pixel starts after the margin and the spacing
+        assertEquals(BACKLIGHT, pixels[(3 * width) + 3]);
+        assertEquals(0xFF000000, pixels[(4 * width) + 4]);
+        assertEquals(0xFF000000, pixels[(5 * width) + 5]);
+        assertEquals(BACKLIGHT, pixels[(6 * width) + 6]);
+        //inactive pixels are fully transparent here
+        assertEquals(BACKLIGHT, pixels[(4 * width) + 7]);
+        //last pixel: 4 + (15 * 3) = 49
+        assertEquals(0xFF000000, pixels[((4 + (7 * 3)) * width) + 49]);
+        assertEquals(BACKLIGHT, pixels[((4 + (7 * 3)) * width) + 51]);
+    }
+
+    @Test
+    @DisplayName("Circular pixels are anti-aliased")
+    void circle() {
+        rasterizer.setPixelSize(8);
+        rasterizer.setSpacing(0);
+        rasterizer.setMargin(0);
+        rasterizer.setPixelShape(PixelShape.CIRCLE);
+        buffer.write(0, 0, true);
+        int[] pixels = rasterizer.rasterize(buffer);
+        int width = rasterizer.getWidth();
+        assertEquals(0xFF000000, pixels[(4 * width) + 4]);
+        assertEquals(BACKLIGHT, pixels[0]);
+        //partially covered edge pixels are blended with the backlight
+        int edge = pixels[(4 * width)];
+        assertNotEquals(BACKLIGHT, edge);
+        assertNotEquals(0xFF000000, edge);
+        //the shape is symmetric
+        assertEquals(pixels[(1 * width) + 2], pixels[(6 * width) + 5]);
+    }
+
+    @Test
+    @DisplayName("Cached layers are rebuilt when the settings change")
+    void invalidation() {
+        buffer.write(0, 0, true);
+        int width = rasterizer.rasterize(buffer).length / rasterizer.getHeight();
+        rasterizer.setActiveColor(0xFFFF0000);
+        assertEquals(0xFFFF0000, rasterizer.rasterize(buffer)[(4 * width) + 4]);
+        rasterizer.setInactiveColor(0xFF0000FF);
+        assertEquals(0xFF0000FF, rasterizer.rasterize(buffer)[(4 * width) + 7]);
+        rasterizer.setBacklightColor(0xFFFFFFFF, 0xFFFFFFFF);
+        assertEquals(0xFFFFFFFF, rasterizer.rasterize(buffer)[0]);
+        //lit pixels of the previous frame are not carried over
+        buffer.write(0, 0, false);
+        assertEquals(0xFF0000FF, rasterizer.rasterize(buffer)[(4 * width) + 4]);
+        rasterizer.setPixelSize(3);
+        rasterizer.rasterize(buffer);
+        assertEquals((16 * 3) + (16 * 1) + 1 + (3 * 2), rasterizer.getWidth());
+    }
+
+    @Test
+    @DisplayName("Frames already rasterized with the same settings are served from the cache")
+    void cache() {
+        RasterCache cache = new RasterCache(1 << 20);
+        rasterizer.setCache(cache);
+        buffer.write(0, 0, true);
+        int[] first = rasterizer.rasterize(buffer).clone();
+        //frames are cached the second time they are rasterized
+        for (int i = 0; i < 2; i++) {
+            buffer.write(0, 0, false);
+            rasterizer.rasterize(buffer);
+            buffer.write(0, 0, true);
+            assertArrayEquals(first, rasterizer.rasterize(buffer));
+        }
+        assertEquals(1, cache.getHits());
+        //a settings change must not return the image of the old settings
+        rasterizer.setActiveColor(0xFFFF0000);
+        int width = rasterizer.getWidth();
+        assertEquals(0xFFFF0000, rasterizer.rasterize(buffer)[(4 * width) + 4]);
+        assertEquals(0xFFFF0000, rasterizer.rasterize(buffer)[(4 * width) + 4]);
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    @DisplayName("A stream of unique frames is neither cached nor copied")
+    void uniqueFrames() {
+        RasterCache cache = new RasterCache(1 << 24);
+        rasterizer.setCache(cache);
+        PixelBuffer frame = new PixelBuffer(128, 64);
+        //allocates the image and the layers
+        rasterizer.rasterize(frame);
+
+        int frames = 1000;
+        long before = allocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            //each frame has one more lit pixel than the previous one
+            frame.write(i % 128, i / 128, true);
+            rasterizer.rasterize(frame);
+        }
+        long allocated = allocatedBytes() - before;
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemoryUsage());
+        //a copy of the frame alone is 1 KB and a copy of the image over 300 KB
+        if (before >= 0)
+            assertTrue(allocated < frames * 256L, String.format("%d bytes allocated for %d frames", allocated, frames));
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+        return bean.isThreadAllocatedMemorySupported() ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    @Test
+    @DisplayName("Rasterizers sharing a cache produce the same images as standalone rasterizers")
+    void sharedLayers() {
+        RasterCache cache = new RasterCache(1 << 20);
+        PixelRasterizer standalone = new PixelRasterizer(), first = new PixelRasterizer(), second = new PixelRasterizer();
+        for (PixelRasterizer r : new PixelRasterizer[] {standalone, first, second}) {
+            r.setPixelShape(PixelShape.CIRCLE);
+            r.setPixelSize(5);
+        }
+        first.setCache(cache);
+        second.setCache(cache);
+        buffer.write(3, 3, true);
+        first.rasterize(buffer);
+        buffer.write(4, 4, true);
+        assertArrayEquals(standalone.rasterize(buffer), second.rasterize(buffer));
+        //a different size must not pick up the layers of the other rasterizers
+        standalone.setPixelSize(2);
+        second.setPixelSize(2);
+        assertArrayEquals(standalone.rasterize(buffer), second.rasterize(buffer));
+        assertArrayEquals(standalone.rasterize(new PixelBuffer(8, 8)), second.rasterize(new PixelBuffer(8, 8)));
+    }
+
+    @Test
+    @DisplayName("Colors are composited over the backlight")
+    void blend() {
+        assertEquals(0xFF000000, PixelRasterizer.blend(0xFF000000, BACKLIGHT, 255));
+        assertEquals(BACKLIGHT, PixelRasterizer.blend(0xFF000000, BACKLIGHT, 0));
+        assertEquals(0xFF808080, PixelRasterizer.blend(0x80FFFFFF, 0xFF000000, 255));
+        assertEquals(0, PixelRasterizer.blend(0, 0, 255));
+    }
+}
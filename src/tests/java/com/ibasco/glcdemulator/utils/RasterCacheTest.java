@@ -0,0 +1,116 @@
+/*-
+ * ========================START=================================
+ * Organization: Rafael Luis Ibasco
+ * Project: GLCD Simulator
+ * Filename: RasterCacheTest.java
+ * 
+ * ---------------------------------------------------------
+ * %%
+ * Copyright (C) 2018 - 2019 Rafael Luis Ibasco
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ * =========================END==================================
+ */
+package com.ibasco.glcdemulator.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RasterCacheTest {
+
+    //16 x 8 frame: 64 bytes of pixels + 16 bytes of frame data
+    private static final long ENTRY_SIZE = (16 * Integer.BYTES) + 16;
+
+    private static PixelBuffer frame(int x) {
+        PixelBuffer buffer = new PixelBuffer(16, 8);
+        buffer.write(x, 0, true);
+        return buffer;
+    }
+
+    @Test
+    @DisplayName("Lookups are keyed by frame content and settings")
+    void lookup() {
+        RasterCache cache = new RasterCache(1024);
+        int[] image = new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+        PixelBuffer frame = frame(1);
+        assertNull(cache.get(frame, 1L));
+        //frames are admitted the second time they are offered
+        cache.put(frame, 1L, image);
+        cache.put(frame, 1L, image);
+        //the cache keeps its own copies
+        frame.write(2, 0, true);
+        image[0] = -1;
+        assertNull(cache.get(frame, 1L));
+        int[] cached = cache.get(frame(1), 1L);
+        assertNotNull(cached);
+        assertEquals(1, cached[0]);
+        assertNull(cache.get(frame(1), 2L));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(0.25d, cache.getHitRate());
+        assertEquals(1, cache.size());
+        assertEquals(ENTRY_SIZE, cache.getMemoryUsage());
+    }
+
+    @Test
+    @DisplayName("Least recently used entries are evicted when the capacity is exceeded")
+    void eviction() {
+        RasterCache cache = new RasterCache(ENTRY_SIZE * 2);
+        admit(cache, frame(0));
+        admit(cache, frame(1));
+        //touch the first entry so the second one becomes the eldest
+        assertNotNull(cache.get(frame(0), 0L));
+        admit(cache, frame(2));
+        assertEquals(2, cache.size());
+        assertEquals(ENTRY_SIZE * 2, cache.getMemoryUsage());
+        assertNotNull(cache.get(frame(0), 0L));
+        assertNull(cache.get(frame(1), 0L));
+        assertNotNull(cache.get(frame(2), 0L));
+    }
+
+    @Test
+    @DisplayName("Images larger than the capacity are not cached")
+    void oversized() {
+        RasterCache cache = new RasterCache(ENTRY_SIZE - 1);
+        admit(cache, frame(0));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemoryUsage());
+        cache.clear();
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Frames offered only once are not cached")
+    void admission() {
+        RasterCache cache = new RasterCache(ENTRY_SIZE * 64);
+        for (int x = 0; x < 16; x++) {
+            cache.put(frame(x), 0L, new int[16]);
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.getMemoryUsage());
+        }
+        //the same frame with different settings is a different image
+        cache.put(frame(0), 1L, new int[16]);
+        assertEquals(0, cache.size());
+        cache.put(frame(0), 0L, new int[16]);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(frame(0), 0L));
+    }
+
+    private static void admit(RasterCache cache, PixelBuffer frame) {
+        cache.put(frame, 0L, new int[16]);
+        cache.put(frame, 0L, new int[16]);
+    }
+}